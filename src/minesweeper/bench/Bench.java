@@ -0,0 +1,115 @@
+package minesweeper.bench;
+
+import java.util.Locale;
+
+/**
+ * A minimal benchmark harness in the spirit of JMH: warmup iterations, then measurement iterations of a fixed
+ * duration, reporting the average time per operation with its error (99.9% confidence, as JMH does).
+ * <p>
+ * Only the {@link Case#op()} call is timed, {@link Case#setup()} runs before every operation outside of the clock,
+ * which lets an operation start from a fresh board. Each operation is timed on its own, so results below ~100 ns/op
+ * include the cost of {@link System#nanoTime()}. The values returned by the operations are summed into a sink so
+ * that the JIT cannot drop them.
+ */
+public final class Bench {
+    /**
+     * A benchmarked operation.
+     */
+    public abstract static class Case {
+        /**
+         * Prepare the next operation, not timed.
+         */
+        public void setup() {
+        }
+
+        /**
+         * The timed operation.
+         *
+         * @return any value depending on the work done
+         */
+        public abstract long op();
+    }
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private long sink;
+
+    public Bench(int warmups, int iterations, long iterationMillis) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Print the header of the result table.
+     */
+    public static void header() {
+        System.out.printf(Locale.ROOT, "%-24s %6s %8s %4s %14s %12s %6s%n",
+                "Benchmark", "(N)", "(dens)", "Cnt", "Score", "Error", "Units");
+    }
+
+    /**
+     * Run a benchmark and print its result line.
+     *
+     * @param name    the name of the benchmark
+     * @param N       the board size parameter
+     * @param density the mine density parameter
+     * @param c       the operation
+     * @return the average time per operation in nanoseconds
+     */
+    public double run(String name, int N, double density, Case c) {
+        for (int i = 0; i < warmups; i++)
+            iteration(c);
+        double[] scores = new double[iterations];
+        for (int i = 0; i < iterations; i++)
+            scores[i] = iteration(c);
+
+        double mean = 0;
+        for (double s : scores)
+            mean += s;
+        mean /= iterations;
+        double var = 0;
+        for (double s : scores)
+            var += (s - mean) * (s - mean);
+        double error = iterations > 1 ? 3.29 * Math.sqrt(var / (iterations - 1)) / Math.sqrt(iterations) : Double.NaN;
+
+        String units = "ns/op";
+        double scale = 1;
+        if (mean >= 1e6) {
+            units = "ms/op";
+            scale = 1e6;
+        } else if (mean >= 1e3) {
+            units = "us/op";
+            scale = 1e3;
+        }
+        System.out.printf(Locale.ROOT, "%-24s %6d %8.2f %4d %14.3f %12.3f %6s%n",
+                name, N, density, iterations, mean / scale, error / scale, units);
+        return mean;
+    }
+
+    /**
+     * One iteration: as many operations as fit in the iteration time, at least one.
+     *
+     * @return the average time per operation of the iteration, in nanoseconds
+     */
+    private double iteration(Case c) {
+        long spent = 0, ops = 0;
+        long end = System.nanoTime() + iterationNanos;
+        do {
+            c.setup();
+            long start = System.nanoTime();
+            sink += c.op();
+            spent += System.nanoTime() - start;
+            ops++;
+        } while (System.nanoTime() < end);
+        return (double) spent / ops;
+    }
+
+    /**
+     * @return the sum of the values returned by the operations, print it to keep them alive
+     */
+    public long getSink() {
+        return sink;
+    }
+}
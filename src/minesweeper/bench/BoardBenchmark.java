@@ -0,0 +1,223 @@
+package minesweeper.bench;
+
+import minesweeper.game.Board;
+import minesweeper.game.GameEngine;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import minesweeper.solver.RobotPlayer;
+
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of the {@link Board} and solver hot paths, parameterised on board size and mine density:
+ * <ul>
+ *     <li>{@code construct}: a new board, mine placement included</li>
+ *     <li>{@code reset}: a new game on an existing board, i.e. the mine placement</li>
+ *     <li>{@code uncoverCascade}: a first click opening a region</li>
+ *     <li>{@code uncoverSingle}: a click on a numbered cell, nothing cascades</li>
+ *     <li>{@code inferOnCell}: an LR click on a numbered cell whose mines are all flagged</li>
+ *     <li>{@code endGame}: a losing click followed by reading every cell, as the view does when the game ends</li>
+ *     <li>{@code solve}: a full {@link RobotPlayer} game</li>
+ * </ul>
+ * Boards are seeded and first-click-safe, so every run benchmarks the same games.
+ * <p>
+ * Usage: {@code BoardBenchmark [filter] [sizes] [densities]}, e.g. {@code BoardBenchmark uncover 10,100,1000 0.1,0.2}.
+ * The filter keeps the benchmarks whose name contains it, "all" keeps them all.
+ */
+public class BoardBenchmark {
+    private static final int WARMUPS = 3;
+    private static final int ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 300;
+
+    private final int N;
+    private final int NMines;
+    private final int center;
+    private long seed;
+
+    private BoardBenchmark(int N, double density) {
+        this.N = N;
+        this.NMines = Math.max(1, (int) (N * N * density));
+        this.center = N / 2 * N + N / 2;
+    }
+
+    /**
+     * Find out the mines of the game on {@code seed} when the first click is the center: play the same game on a
+     * twin board until it is lost, at which point every mine is shown.
+     */
+    private boolean[] mineMap(long seed) {
+        Board twin = new Board(N, NMines, seed, true);
+        twin.uncoverCell(center / N, center % N);
+        for (int key = 0; key < N * N && twin.getGameState() == GameState.ONGOING; key++)
+            twin.uncoverCell(key / N, key % N);
+        boolean[] mines = new boolean[N * N];
+        for (int key = 0; key < N * N; key++) {
+            CellState s = twin.getCellState(key / N, key % N);
+            mines[key] = s == CellState.MINE || s == CellState.FIRED_MINE;
+        }
+        return mines;
+    }
+
+    private Board firstClicked(Board board) {
+        board.reset(++seed);
+        board.uncoverCell(center / N, center % N);
+        return board;
+    }
+
+    private void runAll(Bench bench, String filter, double density) {
+        if (accept(filter, "construct"))
+            bench.run("construct", N, density, new Bench.Case() {
+                @Override
+                public long op() {
+                    return new Board(N, NMines, ++seed, false).getNCovered();
+                }
+            });
+
+        if (accept(filter, "reset"))
+            bench.run("reset", N, density, new Bench.Case() {
+                final Board board = new Board(N, NMines, 0L, false);
+
+                @Override
+                public long op() {
+                    board.reset(++seed);
+                    return board.getNCovered();
+                }
+            });
+
+        if (accept(filter, "uncoverCascade"))
+            bench.run("uncoverCascade", N, density, new Bench.Case() {
+                final Board board = new Board(N, NMines, 0L, true);
+
+                @Override
+                public void setup() {
+                    board.reset(++seed);
+                }
+
+                @Override
+                public long op() {
+                    return board.uncoverCell(center / N, center % N).getRevealed();
+                }
+            });
+
+        if (accept(filter, "uncoverSingle"))
+            bench.run("uncoverSingle", N, density, new Bench.Case() {
+                final Board board = new Board(N, NMines, 0L, true);
+                int target;
+
+                @Override
+                public void setup() {
+                    // a covered numbered cell, that is not a mine
+                    do {
+                        firstClicked(board);
+                        boolean[] mines = mineMap(seed);
+                        target = -1;
+                        for (int key = board.nextFrontierCell(0); key >= 0 && target < 0;
+                             key = board.nextFrontierCell(key + 1))
+                            target = safeNumberedNeighbour(board, mines, key);
+                    } while (target < 0);
+                }
+
+                @Override
+                public long op() {
+                    return board.uncoverCell(target / N, target % N).getRevealed();
+                }
+            });
+
+        if (accept(filter, "inferOnCell"))
+            bench.run("inferOnCell", N, density, new Bench.Case() {
+                final Board board = new Board(N, NMines, 0L, true);
+                int target;
+
+                @Override
+                public void setup() {
+                    // a frontier cell with its mines flagged
+                    do {
+                        firstClicked(board);
+                        boolean[] mines = mineMap(seed);
+                        target = board.nextFrontierCell(0);
+                        if (target >= 0)
+                            flagMinesAround(board, mines, target);
+                    } while (target < 0);
+                }
+
+                @Override
+                public long op() {
+                    return board.inferOnCell(target / N, target % N).getRevealed();
+                }
+            });
+
+        if (accept(filter, "endGame"))
+            bench.run("endGame", N, density, new Bench.Case() {
+                final Board board = new Board(N, NMines, 0L, true);
+                int target;
+
+                @Override
+                public void setup() {
+                    firstClicked(board);
+                    boolean[] mines = mineMap(seed);
+                    for (target = 0; !mines[target]; target++) ;
+                }
+
+                @Override
+                public long op() {
+                    long sum = board.uncoverCell(target / N, target % N).getRevealed();
+                    for (int r = 0; r < N; r++)
+                        for (int c = 0; c < N; c++)
+                            sum += board.getCellState(r, c).ordinal();
+                    return sum;
+                }
+            });
+
+        if (accept(filter, "solve"))
+            bench.run("solve", N, density, new Bench.Case() {
+                final GameEngine engine = new GameEngine(N, NMines, 0L, true);
+
+                @Override
+                public void setup() {
+                    engine.reset(++seed);
+                }
+
+                @Override
+                public long op() {
+                    RobotPlayer player = new RobotPlayer(engine, new SplittableRandom(seed));
+                    return player.play().ordinal() + engine.getMoves();
+                }
+            });
+    }
+
+    private int safeNumberedNeighbour(Board board, boolean[] mines, int key) {
+        int row = key / N, col = key % N;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < N && c >= 0 && c < N && !mines[r * N + c]
+                        && board.getCellState(r, c) == CellState.COVERED)
+                    return r * N + c;
+        return -1;
+    }
+
+    private void flagMinesAround(Board board, boolean[] mines, int key) {
+        int row = key / N, col = key % N;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < N && c >= 0 && c < N && mines[r * N + c])
+                    board.toggleFlag(r, c);
+    }
+
+    private static boolean accept(String filter, String name) {
+        return filter.equals("all") || name.contains(filter);
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "all";
+        String[] sizes = (args.length > 1 ? args[1] : "10,100,1000").split(",");
+        String[] densities = (args.length > 2 ? args[2] : "0.10,0.20").split(",");
+
+        Bench bench = new Bench(WARMUPS, ITERATIONS, ITERATION_MILLIS);
+        Bench.header();
+        for (String size : sizes)
+            for (String density : densities) {
+                double d = Double.parseDouble(density);
+                new BoardBenchmark(Integer.parseInt(size), d).runAll(bench, filter, d);
+            }
+        System.out.println("(sink " + bench.getSink() + ")");
+    }
+}
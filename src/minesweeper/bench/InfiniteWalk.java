@@ -0,0 +1,119 @@
+package minesweeper.bench;
+
+import minesweeper.game.ChunkCache;
+import minesweeper.game.ChunkGenerator;
+import minesweeper.game.GameEngine;
+import minesweeper.game.InfiniteBoard;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import minesweeper.solver.RobotPlayer;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Memory of a long-running player on an {@link InfiniteBoard}, with and without a budget on the chunk cache.
+ * <p>
+ * The player walks east with some drift and clears a band of five rows as it goes: it flags the mines and uncovers
+ * the other cells, knowing the mines from the {@link ChunkGenerator} of the board, so that the walk never ends on a
+ * fired mine. Then it walks back west along the same band, where every chunk is generated again from its delta if it
+ * was evicted. The state of the cache and the heap are reported along the way.
+ * <p>
+ * In the robot mode, a {@link RobotPlayer} plays windows of the board through a {@link GameEngine} instead, each
+ * window half over the previous one, further east; a lost game starts a new one on the board, further east still.
+ * <p>
+ * Usage: {@code InfiniteWalk [steps] [density] [budgetKB...]}, e.g. {@code InfiniteWalk 200000 0.2 1024}, or
+ * {@code InfiniteWalk robot [windows] [density] [budgetKB...]}; a budget of 0 is unbounded.
+ */
+public class InfiniteWalk {
+    private static final int REPORTS = 4;
+    /**
+     * The size of a window of the robot mode, it moves east by half its width.
+     */
+    private static final int WINDOW_ROWS = 32, WINDOW_COLS = 128;
+
+    public static void main(String[] args) {
+        boolean robot = args.length > 0 && args[0].equals("robot");
+        if (robot)
+            args = Arrays.copyOfRange(args, 1, args.length);
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : robot ? 2000 : 200_000;
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : robot ? 0.15 : 0.2;
+        String[] budgets = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length)
+                : new String[]{"1024", "0"};
+        for (String budget : budgets) {
+            long kb = Long.parseLong(budget);
+            long budgetBytes = kb == 0 ? Long.MAX_VALUE : kb << 10;
+            try (InfiniteBoard board = new InfiniteBoard(1L, density, budgetBytes, true)) {
+                System.out.println(budgetBytes == Long.MAX_VALUE ? "unbounded cache"
+                        : "cache budget " + (budgetBytes >> 10) + " KB");
+                System.out.printf(Locale.ROOT, "%10s %12s %9s %9s %9s %9s %10s %9s %9s %8s%n",
+                        robot ? "window" : "step", "uncovered", "resident", "deltas", "file KB", "hit rate",
+                        "evictions", "restored", "heap MB", "ms");
+                if (robot)
+                    play(board, steps);
+                else
+                    walk(board, steps);
+                System.out.println();
+            }
+        }
+    }
+
+    private static void walk(InfiniteBoard board, int steps) {
+        ChunkGenerator oracle = board.getGenerator();
+        SplittableRandom random = new SplittableRandom(1L);
+        board.uncoverCell(0, 0);
+        int row = 0;
+        int[] path = new int[steps];
+        long start = System.nanoTime();
+        for (int step = 0; step < 2 * steps && board.getGameState() == GameState.ONGOING; step++) {
+            int col;
+            if (step < steps) { // east, drifting
+                col = step;
+                row += random.nextInt(8) == 0 ? random.nextInt(3) - 1 : 0;
+                path[step] = row;
+            } else { // back west on the same band
+                col = 2 * steps - 1 - step;
+                row = path[col];
+            }
+            for (int r = row - 2; r <= row + 2; r++) {
+                if (board.getCellState(r, col) != CellState.COVERED)
+                    continue;
+                if (oracle.isMine(r, col))
+                    board.toggleFlag(r, col);
+                else
+                    board.uncoverCell(r, col);
+            }
+            if ((step + 1) % (2 * steps / REPORTS) == 0)
+                report(step + 1, board, start);
+        }
+    }
+
+    private static void play(InfiniteBoard board, int windows) {
+        SplittableRandom random = new SplittableRandom(1L);
+        int won = 0, lost = 0;
+        long start = System.nanoTime();
+        for (int w = 0; w < windows; w++) {
+            GameEngine engine = new GameEngine(board.window(0, w * (WINDOW_COLS / 2), WINDOW_ROWS, WINDOW_COLS));
+            if (new RobotPlayer(engine, random).play() == GameState.WON) {
+                won++;
+            } else {
+                lost++;
+                board.reset();
+            }
+            if ((w + 1) % Math.max(1, windows / REPORTS) == 0)
+                report(w + 1, board, start);
+        }
+        System.out.printf(Locale.ROOT, "%d windows won, %d games lost%n", won, lost);
+    }
+
+    private static void report(int step, InfiniteBoard board, long start) {
+        ChunkCache cache = board.getCache();
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        System.out.printf(Locale.ROOT, "%10d %12d %9d %9d %9d %9.4f %10d %9d %9.1f %8d%n", step,
+                board.getUncovered(), cache.getResident(), cache.getDeltas(), cache.getFileBytes() >> 10,
+                cache.getHitRate(), cache.getEvictions(), cache.getRestored(),
+                (rt.totalMemory() - rt.freeMemory()) / 1e6, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,33 @@
+package minesweeper.bench;
+
+import minesweeper.game.Board;
+
+/**
+ * Time the mine placement of a new game ({@link Board#reset()}) across mine densities from 1% to 99%.
+ * <p>
+ * Usage: {@code PlacementBenchmark [N] [rounds]}, defaults to a 1000x1000 board.
+ */
+public class PlacementBenchmark {
+    private static final int[] DENSITIES = {1, 5, 10, 20, 30, 50, 70, 80, 90, 95, 99};
+
+    public static void main(String[] args) {
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.printf("%dx%d board, %d rounds per density%n", N, N, rounds);
+        System.out.printf("%8s %10s %12s%n", "density", "mines", "ms/board");
+        for (int density : DENSITIES) {
+            int NMines = (int) ((long) N * N * density / 100);
+            Board board = new Board(N, NMines);
+            // warm up
+            for (int i = 0; i < rounds / 2 + 1; i++)
+                board.reset();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+                board.reset();
+            double ms = (System.nanoTime() - start) / 1e6 / rounds;
+            System.out.printf("%7d%% %10d %12.3f%n", density, NMines, ms);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package minesweeper.bench;
+
+import minesweeper.game.Board;
+import minesweeper.game.states.GameState;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measure the bytes allocated by a single reveal that cascades over (almost) the whole board.
+ * <p>
+ * Usage: {@code RevealAllocation [N] [NMines] [rounds]}, defaults to a 1000x1000 board with 10 mines.
+ */
+public class RevealAllocation {
+
+    public static void main(String[] args) {
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int NMines = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        Board board = new Board(N, NMines);
+
+        long bytes = 0, cells = 0;
+        int measured = 0;
+        for (int i = 0; i < rounds; i++) {
+            board.reset();
+            int before = board.getNCovered();
+            long start = bean.getThreadAllocatedBytes(tid);
+            board.uncoverCell(N / 2, N / 2);
+            long allocated = bean.getThreadAllocatedBytes(tid) - start;
+            if (board.getGameState() == GameState.LOST)
+                continue; // clicked on a mine, nothing cascaded
+            // the first rounds warm the code up
+            if (i >= rounds / 2) {
+                bytes += allocated;
+                cells += before - board.getNCovered();
+                measured++;
+            }
+        }
+
+        if (measured == 0) {
+            System.out.println("no reveal measured, every click hit a mine");
+            return;
+        }
+        System.out.printf("%dx%d, %d mines: %d reveals, %d cells revealed per reveal, %d bytes allocated per reveal, %.2f bytes per cell%n",
+                N, N, NMines, measured, cells / measured, bytes / measured, (double) bytes / cells);
+    }
+}
@@ -0,0 +1,171 @@
+package minesweeper.bench;
+
+import minesweeper.game.Board;
+import minesweeper.game.BoardView;
+import minesweeper.game.GameEngine;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import minesweeper.solver.FrontierSolver;
+import minesweeper.solver.Move;
+import minesweeper.solver.Strategy;
+import minesweeper.solver.TiledSolver;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Scaling of the {@link TiledSolver} with the number of threads, on large boards.
+ * <p>
+ * Each run starts from the same position: the first click in the center, then a share of the safe cells uncovered
+ * at random, which leaves a frontier all over the board. The solver then deduces and the moves are applied until
+ * nothing more can be deduced. The time of the whole run and the time spent deducing are reported for 1 to all
+ * cores, along with the sequential {@link FrontierSolver} for reference; every tiled run must end on the same
+ * position.
+ * <p>
+ * Usage: {@code TiledSolverScaling [sizes] [density] [opened]}, e.g. {@code TiledSolverScaling 1000,4000 0.15 0.05}.
+ */
+public class TiledSolverScaling {
+    private static final long SEED = 42L;
+    private static final int REPEATS = 3;
+
+    private final int N;
+    private final int NMines;
+    private final double opened;
+    private final boolean[] mines;
+
+    private TiledSolverScaling(int N, double density, double opened) {
+        this.N = N;
+        this.NMines = Math.max(1, (int) (N * N * density));
+        this.opened = opened;
+        this.mines = mineMap();
+    }
+
+    /**
+     * Find out the mines of the game by playing it on a twin board until it is lost, at which point every mine is
+     * shown.
+     */
+    private boolean[] mineMap() {
+        Board twin = new Board(N, NMines, SEED, true);
+        twin.uncoverCell(N / 2, N / 2);
+        for (int key = 0; key < N * N && twin.getGameState() == GameState.ONGOING; key++)
+            twin.uncoverCell(key / N, key % N);
+        boolean[] mines = new boolean[N * N];
+        for (int key = 0; key < N * N; key++) {
+            CellState s = twin.getCellState(key / N, key % N);
+            mines[key] = s == CellState.MINE || s == CellState.FIRED_MINE;
+        }
+        return mines;
+    }
+
+    private GameEngine position() {
+        GameEngine engine = new GameEngine(N, NMines, SEED, true);
+        engine.uncover(N / 2, N / 2);
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long n = (long) (opened * N * N); n > 0; n--) {
+            int key = random.nextInt(N * N);
+            if (!mines[key])
+                engine.uncover(key / N, key % N);
+        }
+        return engine;
+    }
+
+    /**
+     * The result of a run: the times, and the position it ended on.
+     */
+    private static final class Run {
+        long nanos, deduceNanos;
+        int moves, covered;
+    }
+
+    private Run run(Strategy strategy) {
+        GameEngine engine = position();
+        BoardView board = engine.getBoard();
+        Run run = new Run();
+        long start = System.nanoTime();
+        strategy.start(board);
+        try {
+            int applied;
+            do {
+                long t = System.nanoTime();
+                List<Move> moves = strategy.deduce(board, engine.getMinesLeft());
+                run.deduceNanos += System.nanoTime() - t;
+                applied = 0;
+                for (Move m : moves) {
+                    if (engine.isFinished() || board.getCellState(m.getRow(), m.getCol()) != CellState.COVERED)
+                        continue;
+                    boolean done = m.getType() == Move.Type.FLAG
+                            ? engine.toggleFlag(m.getRow(), m.getCol()) != 0
+                            : engine.uncover(m.getRow(), m.getCol()).isApplied();
+                    if (done)
+                        applied++;
+                }
+                run.moves += applied;
+            } while (applied > 0 && !engine.isFinished());
+        } finally {
+            strategy.stop(board);
+        }
+        run.nanos = System.nanoTime() - start;
+        run.covered = board.getNCovered();
+        return run;
+    }
+
+    /**
+     * The best of a few runs, after one for warmup.
+     */
+    private Run best(Supplier<Strategy> strategy) {
+        run(strategy.get());
+        Run best = null;
+        for (int i = 0; i < REPEATS; i++) {
+            Run r = run(strategy.get());
+            if (best == null || r.nanos < best.nanos)
+                best = r;
+        }
+        return best;
+    }
+
+    /**
+     * Print a result line, the speedup of the deductions relative to the reference.
+     *
+     * @param same whether the run must end on the same position as the reference
+     */
+    private void report(String name, Run r, Run reference, boolean same) {
+        boolean different = same && (r.covered != reference.covered || r.moves != reference.moves);
+        System.out.printf(Locale.ROOT, "%-10s %6d %10.1f %10.1f %9d %8.2fx %s%n", name, N, r.nanos / 1e6,
+                r.deduceNanos / 1e6, r.moves, (double) reference.deduceNanos / r.deduceNanos,
+                different ? "DIFFERENT POSITION" : "");
+    }
+
+    private void runAll(int cores) {
+        Run sequential = best(FrontierSolver::new);
+        Run single = null;
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(cores, threads * 2) : cores + 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Run r = best(() -> new TiledSolver(pool, true));
+                if (single == null)
+                    single = r;
+                report("tiles/" + threads, r, single, true);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        report("frontier", sequential, single, false);
+    }
+
+    public static void main(String[] args) {
+        String[] sizes = (args.length > 0 ? args[0] : "1000,4000").split(",");
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.15;
+        double opened = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf(Locale.ROOT, "density %.2f, %.0f%% of the cells opened at random, %d cores%n",
+                density, opened * 100, cores);
+        System.out.printf(Locale.ROOT, "%-10s %6s %10s %10s %9s %9s%n",
+                "Solver", "(N)", "total ms", "deduce ms", "moves", "speedup");
+        for (String size : sizes)
+            new TiledSolverScaling(Integer.parseInt(size), density, opened).runAll(cores);
+    }
+}
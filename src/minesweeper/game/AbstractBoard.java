@@ -0,0 +1,297 @@
+package minesweeper.game;
+
+import minesweeper.game.states.CellState;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.random.RandomGenerator;
+
+/**
+ * The logic the boards share, whatever the way they store their cells: the listeners, the cascade that opens the
+ * region around a cell with no mine around, the chord, the blinking of the cells around a chord that cannot be
+ * applied, and the sampling of the mines.
+ * <p>
+ * A board gives the primitives: whether a cell is on the board, uncovered, flagged or a mine, the number of mines
+ * around it, and how to uncover one cell. Cells are addressed by (row, col) of ints, negative ones included for a
+ * board that has them.
+ */
+abstract class AbstractBoard {
+    /**
+     * Static helper to quickly iterator over adjacent eight cells.
+     */
+    static final int[] di = new int[]{-1, -1, -1, 0, 1, 1, 1, 0};
+    /**
+     * Static helper to quickly iterator over adjacent eight cells.
+     */
+    static final int[] dj = new int[]{-1, 0, 1, 1, 1, 0, -1, -1};
+
+    /**
+     * An array of uncovered CellStates for quickly getting the desired state.
+     */
+    static final CellState[] uncoveredStates = new CellState[]{
+            CellState.UNC0, CellState.UNC1, CellState.UNC2, CellState.UNC3,
+            CellState.UNC4, CellState.UNC5, CellState.UNC6, CellState.UNC7, CellState.UNC8
+    };
+
+    /**
+     * The listeners of the changes of cells, an array to fire events without allocating an iterator.
+     */
+    private BoardListener[] listeners = new BoardListener[0];
+
+    /**
+     * Ring buffer of the cells to expand in {@link #cascade}, a cell as {@code row << 32 | col}; its length is a
+     * power of two.
+     */
+    private long[] queue;
+    /**
+     * Read and write positions of the cascade ring buffer.
+     */
+    private int head, tail;
+
+    /**
+     * The center cell of the temporarily blinking {@code TEMP_UNC0} area.
+     */
+    private int tempRow, tempCol;
+    private boolean blinking;
+
+    /**
+     * @param queueCapacity the initial length of the cascade ring buffer, a power of two; it grows if needed
+     */
+    AbstractBoard(int queueCapacity) {
+        queue = new long[queueCapacity];
+    }
+
+    /**
+     * Register a listener of the changes of cells.
+     *
+     * @param listener the listener
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Unregister a listener of the changes of cells.
+     *
+     * @param listener the listener
+     */
+    public void removeBoardListener(BoardListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                BoardListener[] rest = new BoardListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, rest, 0, i);
+                System.arraycopy(listeners, i + 1, rest, i, rest.length - i);
+                listeners = rest;
+                return;
+            }
+        }
+    }
+
+    void fireCellChanged(int row, int col) {
+        for (BoardListener listener : listeners)
+            listener.cellChanged(row, col);
+    }
+
+    void fireBoardChanged() {
+        for (BoardListener listener : listeners)
+            listener.boardChanged();
+    }
+
+    /**
+     * @return true if (row, col) is a cell of the board
+     */
+    abstract boolean contains(int row, int col);
+
+    abstract boolean isRevealed(int row, int col);
+
+    abstract boolean isFlagged(int row, int col);
+
+    abstract boolean isMine(int row, int col);
+
+    /**
+     * Count the mines of the adjacent cells of (row, col).
+     */
+    abstract int getMineCnt(int row, int col);
+
+    /**
+     * Uncover a cell during the cascade, if it is still covered and not flagged.
+     *
+     * @return true if the cell has just been uncovered as a UNC0, so its neighbors need to be revealed too
+     */
+    abstract boolean reveal(int row, int col);
+
+    /**
+     * Uncover one covered cell that is not flagged: fire it if it is a mine, otherwise {@link #cascade} from it.
+     * Does not decide the end of the game.
+     *
+     * @return true if the cell is a mine
+     */
+    abstract boolean open(int row, int col);
+
+    /**
+     * Breadth first search, auto expand to reach non-UNC0 frontier.
+     * <p>
+     * A cell is marked uncovered when it is queued, so the revealed cells double as the visited set and only UNC0
+     * cells ever enter the queue. The queue is a primitive ring buffer owned by the board and reused across calls,
+     * a cascade allocates nothing per cell. The cascade does not look at the state of the game, the move that
+     * started it checks for a win once it is done.
+     *
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     */
+    void cascade(int row, int col) {
+        if (!reveal(row, col))
+            return;
+
+        head = tail = 0;
+        push(row, col);
+        while (head != tail) {
+            long key = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            int r = (int) (key >> 32);
+            int c = (int) key;
+
+            // a UNC0 has been revealed, reveal its neighbors
+            for (int i = 0; i < di.length; i++) {
+                int _r = r + di[i];
+                int _c = c + dj[i];
+                if (contains(_r, _c) && reveal(_r, _c))
+                    push(_r, _c);
+            }
+        }
+    }
+
+    /**
+     * Append a cell to the cascade ring buffer, doubling the buffer when it is full.
+     */
+    private void push(int row, int col) {
+        queue[tail] = ((long) row << 32) | (col & 0xFFFFFFFFL);
+        tail = (tail + 1) & (queue.length - 1);
+        if (tail == head) { // full, grow and unwrap
+            long[] grown = new long[queue.length << 1];
+            int n = queue.length - head;
+            System.arraycopy(queue, head, grown, 0, n);
+            System.arraycopy(queue, 0, grown, n, head);
+            head = 0;
+            tail = queue.length;
+            queue = grown;
+        }
+    }
+
+    /**
+     * Whether an LR click on a cell uncovers its neighbours: the cell is an uncovered number and as many of its
+     * neighbours are flagged.
+     */
+    boolean canChord(int row, int col) {
+        if (!contains(row, col) || !isRevealed(row, col) || isMine(row, col))
+            return false;
+        int minesCount = getMineCnt(row, col);
+        if (minesCount == 0)
+            return false;
+        int flaggedCell = 0;
+        for (int i = 0; i < di.length; i++)
+            if (contains(row + di[i], col + dj[i]) && isFlagged(row + di[i], col + dj[i]))
+                flaggedCell++;
+        return minesCount == flaggedCell;
+    }
+
+    /**
+     * Uncover each covered neighbour of a cell {@link #canChord} accepts, as we believe they are empty. Only the
+     * first mine fires, the others are shown as mines. Does not decide the end of the game.
+     *
+     * @return true if a mine fired
+     */
+    boolean chord(int row, int col) {
+        boolean hitMine = false;
+        for (int i = 0; i < di.length; i++) {
+            int _r = row + di[i];
+            int _c = col + dj[i];
+            if (!contains(_r, _c) || isRevealed(_r, _c) || isFlagged(_r, _c))
+                continue;
+            if (hitMine && isMine(_r, _c))
+                continue;
+            hitMine |= open(_r, _c);
+        }
+        return hitMine;
+    }
+
+    /**
+     * Temporarily change the appearance surrounding cells of (row, col) to UNC0;
+     * @param row the center cell row index
+     * @param col the center cell column index
+     */
+    public void changeTempToUNC0(int row, int col) {
+        // will change back later, does not affect the game
+        tempRow = row;
+        tempCol = col;
+        blinking = true;
+        fireAround(row, col);
+    }
+
+    /**
+     * Restore the appearance of temporarily marked as UNC0 cells.
+     * @param row the center cell row index
+     * @param col the center cell column index
+     */
+    public void restoreTempUNC0(int row, int col) {
+        if (blinking && row == tempRow && col == tempCol) {
+            blinking = false;
+            fireAround(row, col);
+        }
+    }
+
+    /**
+     * @return true if a covered cell shows as {@code TEMP_UNC0}
+     */
+    boolean isBlinking(int row, int col) {
+        return blinking && Math.abs(row - tempRow) <= 1 && Math.abs(col - tempCol) <= 1;
+    }
+
+    /**
+     * Stop the blinking without firing, the board is about to change as a whole.
+     */
+    void clearBlinking() {
+        blinking = false;
+    }
+
+    /**
+     * Fire a change for (row, col) and its eight neighbours, the center cell blinks as well.
+     */
+    private void fireAround(int row, int col) {
+        if (listeners.length == 0)
+            return;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (contains(r, c)) // prevent out of bound
+                    fireCellChanged(r, c);
+    }
+
+    /**
+     * Randomly pick {@code mines} positions out of {@code cells} with Floyd's sampling: every subset is equally
+     * likely, and exactly one random number is drawn per mine whatever the density. The positions of the safe cells
+     * are cut out of the sampled space.
+     *
+     * @param random the source of the sample
+     * @param cells  the number of positions that may hold a mine, the safe ones excluded
+     * @param mines  the number of positions to pick
+     * @param safe   the sorted positions that never hold a mine
+     * @param place  places a mine at a position, returns false if there is one already
+     */
+    static void sample(RandomGenerator random, int cells, int mines, int[] safe, IntPredicate place) {
+        for (int j = cells - mines; j < cells; j++) {
+            if (!place.test(skip(random.nextInt(j + 1), safe))) // already a mine here, j cannot be one yet
+                place.test(skip(j, safe));
+        }
+    }
+
+    /**
+     * Map an index of the sampled space to the position, stepping over the safe positions.
+     */
+    private static int skip(int pos, int[] safe) {
+        for (int s : safe)
+            if (s <= pos)
+                pos++;
+        return pos;
+    }
+}
@@ -2,70 +2,104 @@ package minesweeper.game;
 
 import minesweeper.game.states.CellState;
 import minesweeper.game.states.GameState;
-import minesweeper.gfx.Assets;
 
-import java.awt.*;
-import java.util.*;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 /**
- * managing the underlying data and work with {@link Graphics} to draw on canvas, in order to update the
- * look of the board.
+ * managing the underlying data of the board. The board is pure game logic and does not touch AWT or Swing, the
+ * views read the public {@link CellState} of each cell to update the look of the board. The cascade, the chord, the
+ * listeners and the sampling of the mines are shared with {@link ChunkedBoard} and {@link InfiniteBoard} in
+ * {@link AbstractBoard}.
+ * <p>
+ * The cells are stored as packed bit planes (mine, revealed, flagged), one bit per cell. Each row of a plane is
+ * {@code W} words long and framed by a guard column on both sides, and the plane has a guard row above and below
+ * the board, so cell (row, col) lives at bit {@code col + 1} of plane row {@code row + 1}. Guard bits are never set,
+ * which lets neighbour counts and the frontier be computed with word-wide shifts and no bounds checks.
+ * The public {@link CellState} of a cell is derived from the planes and the state of the game, so ending the game
+ * does not have to rewrite any cell.
+ * <p>
+ * With the history enabled, each move is journaled for {@link #undo}: the cells it uncovered and the flag it toggled go to a primitive array,
+ * with the state of the game before it. The history grows with the cells the moves changed, not with the size of the
+ * board, and undoing a move clears its bits again. {@link #redo} applies an undone move again. The history is off by
+ * default, so that the robots and the benchmarks do not pay for it; the interactive game turns it on.
  */
-public class Board {
+public class Board extends AbstractBoard implements PlayableBoard {
     /**
-     * Static helper to quickly iterator over adjacent eight cells.
+     * The largest dimension of a board. The three bit planes of the largest board take about 6 MB.
      */
-    private final int[] di = new int[]{-1, -1, -1, 0, 1, 1, 1, 0};
+    public static final int MAX_N = 4096;
     /**
-     * Static helper to quickly iterator over adjacent eight cells.
+     * The number of cells still covered.
      */
-    private final int[] dj = new int[]{-1, 0, 1, 1, 1, 0, -1, -1};
-
+    private int NCovered;
+    /**
+     * Current state of the game.
+     */
+    private GameState gameState;
+    /**
+     * Bit plane monitoring if a cell is a mine. Must be private to keep it invisible.
+     */
+    private final long[] mine;
+    /**
+     * Bit plane monitoring if a cell has been uncovered. A fired mine is an uncovered mine.
+     */
+    private final long[] revealed;
     /**
-     * Static helper to quickly iterator over adjacent nine cells, including (0, 0) itself.
+     * Bit plane monitoring if a cell is flagged.
      */
-    private final int[] di0 = new int[]{-1, -1, -1, 0, 1, 1, 1, 0, 0};
+    private final long[] flagged;
     /**
-     * Static helper to quickly iterator over adjacent nine cells, including (0, 0) itself.
+     * The in-board bits of each word of a plane row, i.e. everything but the guard columns.
      */
-    private final int[] dj0 = new int[]{-1, 0, 1, 1, 1, 0, -1, -1, 0};
+    private final long[] colMask;
+    /**
+     * The number of words in a row of a plane.
+     */
+    private final int W;
 
     /**
-     * An array of uncovered CellStates for quickly getting the desired state.
+     * The number of flagged cells.
      */
-    private final CellState[] uncoveredStates = new CellState[]{
-            CellState.UNC0, CellState.UNC1, CellState.UNC2, CellState.UNC3,
-            CellState.UNC4, CellState.UNC5, CellState.UNC6, CellState.UNC7, CellState.UNC8
-    };
+    private int NFlagged;
 
     /**
-     * The number of mines still covered.
+     * The opcodes of the moves of the history.
      */
-    private int NCovered;
+    private static final int UNCOVER = 0, CHORD = 1, FLAG = 2;
     /**
-     * Current state of the game.
+     * Set in {@link #moveBefore} if the move placed the mines, i.e. it was the first click.
      */
-    private GameState gameState;
+    private static final int PLACED_MINES = 0x100;
     /**
-     * 2D array monitoring if a cell is a mine. Must be private to keep it invisible.
-     * Save data in separate arrays, instead of an array of objects.
-     * This increases CPU-Register cache hit so can run faster
+     * Whether the moves are journaled for {@link #undo}.
      */
-    private boolean[][] isMine;
+    private boolean historyEnabled;
     /**
-     * The number of mines of the adjacent cells.
+     * The cells changed by the moves of the history, in order: the index of an uncovered cell, or the complement of
+     * the index of a cell whose flag was toggled.
      */
-    private int[][] mineCnt;
-
-    public CellState[][] getStates() {
-        return states;
-    }
-
+    private int[] journal = new int[64];
+    private int journalSize;
     /**
-     * 2D array monitoring the current public state of each cell.
+     * For each move of the history: the end of its cells in the journal, the move itself (its opcode in the high
+     * half, its cell index in the low half) to redo it, and the ordinal of the state of the game before it with
+     * {@link #PLACED_MINES}.
      */
-    private CellState[][] states;
+    private int[] moveEnds = new int[16];
+    private long[] moveOps = new long[16];
+    private int[] moveBefore = new int[16];
+    /**
+     * The moves {@code 0} to {@code historyTop - 1} are applied, the moves {@code historyTop} to
+     * {@code historySize - 1} are undone and may be redone.
+     */
+    private int historyTop, historySize;
+    /**
+     * A move is being redone, it must not drop the moves after it.
+     */
+    private boolean redoing;
 
     /**
      * The dimension of the board.
@@ -76,313 +110,682 @@ public class Board {
      */
     private int NMines;
 
+    /**
+     * The generator algorithm of the mine placement, seeded with {@link #seed} for every game.
+     */
+    private final RandomGeneratorFactory<? extends RandomGenerator> generator;
+    /**
+     * Draws the seed of the next game on {@link #reset()}.
+     */
+    private final SplittableRandom seeds;
+    /**
+     * The seed of the current game. Together with the first click, if {@link #firstClickSafe}, it determines every
+     * mine of the board.
+     */
+    private long seed;
+    /**
+     * Keep the first uncovered cell and its eight neighbours free of mines. The mines are then placed on the first
+     * {@link #uncoverCell}, instead of when the game starts.
+     */
+    private final boolean firstClickSafe;
+    /**
+     * Whether the mines of the current game have been placed yet.
+     */
+    private boolean minesPlaced;
+
+    /**
+     * Create a board with a random seed, whose mines are placed before the first click.
+     *
+     * @param N      the dimension of the board
+     * @param NMines the number of mines
+     */
     public Board(int N, int NMines) {
+        this(N, NMines, new SplittableRandom().nextLong(), false);
+    }
+
+    /**
+     * Create a reproducible board: two boards created with the same parameters and receiving the same first click
+     * have the same mines.
+     *
+     * @param N              the dimension of the board
+     * @param NMines         the number of mines
+     * @param seed           the seed of the first game, the seeds of the next games are derived from it
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     */
+    public Board(int N, int NMines, long seed, boolean firstClickSafe) {
+        this(N, NMines, seed, firstClickSafe, RandomGeneratorFactory.of("SplittableRandom"));
+    }
+
+    /**
+     * Create a reproducible board whose mines are placed by the given generator algorithm, e.g.
+     * {@code RandomGeneratorFactory.of("L64X128MixRandom")}.
+     *
+     * @param N              the dimension of the board
+     * @param NMines         the number of mines
+     * @param seed           the seed of the first game, the seeds of the next games are derived from it
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     * @param generator      the generator algorithm, seeded with the seed of each game
+     */
+    public Board(int N, int NMines, long seed, boolean firstClickSafe,
+                 RandomGeneratorFactory<? extends RandomGenerator> generator) {
+        // a cascade wave front rarely exceeds a few rows, the buffer grows if it does
+        super(Integer.highestOneBit(4 * Math.max(10, Math.min(N, MAX_N))) << 1);
         // parameters should have be checked before here
         // if, somehow, they are still invalid, overwrite them with defaults
-        if (N < 10 || N > 1000 || NMines < 1 || NMines > N * N) {
+        if (N < 10 || N > MAX_N || NMines < 1 || NMines > N * N) {
             N = 20;
             NMines = 50;
         }
 
         this.N = N;
-        this.NCovered = N * N;
         this.NMines = NMines;
-
-        isMine = new boolean[N][N];
-        // mineCnt should be one unit larger than the actual board
-        mineCnt = new int[N + 2][N + 2];
-        states = new CellState[N][N];
-
-        putMines();
-
-        for (int i = 0; i < N; i++)
-            Arrays.fill(states[i], CellState.COVERED);
-
-        gameState = GameState.ONGOING;
+        this.firstClickSafe = firstClickSafe;
+        this.generator = generator;
+        this.seeds = new SplittableRandom(seed);
+
+        // one guard column on both sides, one guard row above and below
+        W = (N + 2 + 63) >>> 6;
+        mine = new long[(N + 2) * W];
+        revealed = new long[(N + 2) * W];
+        flagged = new long[(N + 2) * W];
+        colMask = new long[W];
+        for (int c = 1; c <= N; c++)
+            colMask[c >>> 6] |= 1L << c;
+
+        reset(seed);
     }
 
+    /**
+     * Start a new game, with the next seed derived from the seed of the board.
+     */
     public void reset() {
-        this.NCovered = N * N;
-        isMine = new boolean[N][N];
-        // mineCnt should be one unit larger than the actual board
-        mineCnt = new int[N + 2][N + 2];
-        states = new CellState[N][N];
+        reset(seeds.nextLong());
+    }
 
-        putMines();
+    /**
+     * Start a new game with the given seed.
+     *
+     * @param seed the seed of the game
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.NCovered = N * N;
+        Arrays.fill(mine, 0L);
+        Arrays.fill(revealed, 0L);
+        Arrays.fill(flagged, 0L);
+        NFlagged = 0;
+        clearBlinking();
+        clearHistory();
 
-        for (int i = 0; i < N; i++)
-            Arrays.fill(states[i], CellState.COVERED);
+        minesPlaced = false;
+        if (!firstClickSafe)
+            putMines(-1, -1);
 
         gameState = GameState.ONGOING;
+        fireBoardChanged();
     }
 
     /**
-     * Return the number of mines still covered.
+     * Return the number of cells still covered, flagged cells included.
      *
-     * @return the number of mines still covered.
+     * @return the number of cells still covered.
      */
     public int getNCovered() {
         return NCovered;
     }
 
     /**
-     * Randomly place mines on the board, and initiating mineCnt.
+     * Index of the word holding cell (row, col) in a plane.
      */
-    private void putMines() {
-        Random rand = new Random();
-        int mines = NMines;
-        while (mines-- > 0) {
-            int pos = rand.nextInt(NCovered);
-            int x = pos % N;
-            int y = pos / N;
-            if (isMine[y][x]) // already a mine here
-                mines++;
-            else {
-                isMine[y][x] = true; // place a mine here
-                // update neighbor cnt
-                for (int d = 0; d < di.length; d++) {
-                    mineCnt[y + di[d] + 1][x + dj[d] + 1]++;
-                }
-            }
-        }
+    private int word(int row, int col) {
+        return (row + 1) * W + ((col + 1) >>> 6);
     }
 
     /**
-     * When the game stopps, display covered mines. The method automatically flags all mines not flagged by user
-     * if he wins, displays mines as mines if he loses.
+     * Test the bit of cell (row, col) in a plane. Guard cells (row or col of -1 or N) read as 0.
+     */
+    private boolean test(long[] plane, int row, int col) {
+        return (plane[word(row, col)] & (1L << (col + 1))) != 0;
+    }
+
+    private void set(long[] plane, int row, int col) {
+        plane[word(row, col)] |= 1L << (col + 1);
+    }
+
+    private void clear(long[] plane, int row, int col) {
+        plane[word(row, col)] &= ~(1L << (col + 1));
+    }
+
+    @Override
+    boolean contains(int row, int col) {
+        return row >= 0 && row < N && col >= 0 && col < N;
+    }
+
+    @Override
+    boolean isRevealed(int row, int col) {
+        return test(revealed, row, col);
+    }
+
+    @Override
+    boolean isFlagged(int row, int col) {
+        return test(flagged, row, col);
+    }
+
+    @Override
+    boolean isMine(int row, int col) {
+        return test(mine, row, col);
+    }
+
+    /**
+     * The three bits of columns col-1, col, col+1 of a board row, as the lowest bits of the result.
+     *
+     * @param plane the plane to read
+     * @param row   row index, may be a guard row
+     * @param col   column index of the middle bit
+     * @return the three bits, lowest bit is col-1
+     */
+    private long bits3(long[] plane, int row, int col) {
+        int base = (row + 1) * W;
+        int shift = col & 63; // padded position of col-1 is col
+        int w = col >>> 6;
+        long bits = plane[base + w] >>> shift;
+        if (shift > 61)
+            bits |= plane[base + w + 1] << (64 - shift);
+        return bits & 7L;
+    }
+
+    /**
+     * Randomly place mines on the board with {@link #sample}, the mine plane is the membership set of the sample.
      * <p>
-     * For the cells misflagged, not a mine, it is displayed as a cross-mine image (WRONG_FLAG).
+     * The cells of the safe zone are cut out of the sampled index space. The zone shrinks to the clicked cell alone,
+     * then to nothing, if the other cells cannot hold all the mines.
      *
-     * @param won win or loss
-     * @see Graphics
-     */
-    private void uncoverAll(boolean won) {
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                if (states[i][j] == CellState.COVERED && isMine[i][j]) {
-                    states[i][j] = won ? CellState.FLAGGED : CellState.MINE;
-                } else if (states[i][j] == CellState.FLAGGED && !isMine[i][j]) {
-                    states[i][j] = CellState.WRONG_FLAG;
-                }
-            }
-        }
+     * @param row row index of the first click, -1 for no safe zone
+     * @param col column index of the first click
+     */
+    private void putMines(int row, int col) {
+        int[] safe = safeZone(row, col);
+        sample(generator.create(seed), N * N - safe.length, NMines, safe, pos -> {
+            if (test(mine, pos / N, pos % N))
+                return false;
+            set(mine, pos / N, pos % N); // place a mine here
+            return true;
+        });
+        minesPlaced = true;
     }
 
     /**
-     * Breadth first search, auto expand to reach non-UNC0 frontier.
+     * The sorted cell indices kept free of mines around a first click.
+     */
+    private int[] safeZone(int row, int col) {
+        if (row < 0 || NMines >= N * N)
+            return new int[0];
+        int[] zone = new int[9];
+        int n = 0;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < N && c >= 0 && c < N)
+                    zone[n++] = r * N + c;
+        if (N * N - n < NMines) // too dense, only the clicked cell is safe
+            return new int[]{row * N + col};
+        return Arrays.copyOf(zone, n); // row-major, so already sorted
+    }
+
+    /**
+     * Uncover a cell during the cascade, if it is still covered and not flagged.
+     *
      * @param row the row index of the cell
      * @param col the column index of the cell
+     * @return true if the cell has just been uncovered as a UNC0, so its neighbors need to be revealed too
      */
-    private void bfs(int row, int col) {
-        Queue<Integer> q = new ArrayDeque<>();
-        Set<Integer> visited = new HashSet<>();
-
-        /*
-        Restore NCovered which has -- before bfs, we do this for a preliminary check of status
-        if not Win, we need to restore it back and do a bfs
-         */
-        NCovered++;
-        q.add(row * N + col);
-        visited.add(row * N + col);
-
-        while (!q.isEmpty()) {
-//            System.out.println(q.toString());
-            int r = q.peek() / N;
-            int c = q.poll() % N;
-//            System.out.println("state:"+states[r][c].toString());
-
-            if (states[r][c] != CellState.COVERED)
-                continue;
-
-            states[r][c] = uncoveredStates[mineCnt[r + 1][c + 1]];
-            NCovered--; // decrease ACovered now
-            if (NMines == NCovered) {
-                gameState = GameState.WON;
-                uncoverAll(true); // uncover all in win mode
-            }
-
-            // if the concerning cell is not UNC0, no need to consider queueing its neighbors
-            if (states[r][c] != CellState.UNC0)
-                continue;
+    @Override
+    boolean reveal(int row, int col) {
+        if (test(revealed, row, col) || test(flagged, row, col))
+            return false;
+        set(revealed, row, col);
+        NCovered--;
+        note(row * N + col);
+        fireCellChanged(row, col);
+        return getMineCnt(row, col) == 0;
+    }
 
-            // reveal a UNC0, queue its neighbor
-            for (int i = 0; i < di.length; i++) {
-                int _r = r + di[i];
-                int _c = c + dj[i];
-                int key = _r * N + _c;
-                if (_r < 0 || _r >= N || _c < 0 || _c >= N || visited.contains(key))
-                    continue;
-                q.add(key);
-                visited.add(key); // anti-double queueing a cell
-            }
+    /**
+     * Uncover one covered cell: fire it if it is a mine, otherwise cascade from it to auto expand the region if
+     * needed. Does not decide the end of the game.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return true if the cell is a mine
+     */
+    @Override
+    boolean open(int row, int col) {
+        if (test(mine, row, col)) { // hit a mine
+            set(revealed, row, col); // the fired mine
+            NCovered--;
+            note(row * N + col);
+            fireCellChanged(row, col);
+            return true;
         }
+        cascade(row, col);
+        return false;
+    }
 
-        // can bfs end the game ???
-        if (NCovered == NMines)
+    /**
+     * Decide the state of the game once a move is done. Called exactly once per move, whatever the number of cells
+     * it uncovered.<p>
+     * When the game stops, the covered mines and misflagged cells are displayed through {@link #getCellState}, no
+     * cell needs to be rewritten.
+     *
+     * @param hitMine        the move fired a mine
+     * @param NCoveredBefore the number of covered cells before the move
+     * @return the result of the move
+     */
+    private MoveResult endMove(boolean hitMine, int NCoveredBefore) {
+        if (hitMine)
+            gameState = GameState.LOST;
+        else if (NCovered == NMines)
             gameState = GameState.WON;
+        if (gameState != GameState.ONGOING)
+            fireBoardChanged(); // the mines show up
+        return MoveResult.applied(NCoveredBefore - NCovered, gameState);
     }
 
     /**
-     * Parameter The first Step to uncover a cell. A primary check is performed first to see if unveiling this cell
-     * will end the game. If so, the game is stopped, else, a Bread-first search will be performed on the concerning
-     * cell and auto expand the region if needed.<p>
-     * Note that {@code Graphics g} is not manually disposed in this method, instead it should be disposed by the caller
-     * , the constructor of graphics. The game may end by this method.
-     * <p>
-     * Change the state of cell only in bfs, do not change in this method.
+     * Uncover a cell. If it is a mine the game is lost, else, a Bread-first search will be performed on the
+     * concerning cell and auto expand the region if needed. The game is won once every cell that is not a mine is
+     * uncovered.
      *
      * @param row row index of the cell
      * @param col column index of the cell
-     * @return true if successfully uncover a mine, end the game, or uncover a region; false if hit a mine, lose the
-     * game or click on an invalid cell
+     * @return the result of the move; not applied if the game is over or the cell is not covered
      */
-    public boolean uncoverCell(int row, int col) {
-        if (states[row][col] != CellState.COVERED) // click on non-covered tile, ignore
-            return false;
-        if (isMine[row][col]) { // hit a mine
-            gameState = GameState.LOST;
-            states[row][col] = CellState.FIRED_MINE;
-            uncoverAll(false);
-        } else {
-            NCovered--;
-//            states[row][col] = uncoveredStates[getMineCnt(row, col)];
-            if (NCovered == NMines) { // win
-                states[row][col] = uncoveredStates[mineCnt[row+1][col+1]];
-                gameState = GameState.WON;
-                uncoverAll(true); // uncover all in win mode
-            } else
-                bfs(row, col); // uncover, game will move on
-        }
-        return true;
+    public MoveResult uncoverCell(int row, int col) {
+        // game over or click on non-covered tile, ignore
+        if (gameState != GameState.ONGOING || getCellState(row, col) != CellState.COVERED)
+            return MoveResult.ignored(gameState);
+        GameState stateBefore = gameState;
+        boolean placing = !minesPlaced;
+        if (placing)
+            putMines(row, col);
+        int before = NCovered;
+        MoveResult result = endMove(open(row, col), before);
+        commit(UNCOVER, row, col, stateBefore, placing);
+        return result;
     }
 
 
     /**
-     * Inferring on the cell on an LR click callback. The game may end by this method calling {@code uncover}
+     * Inferring on the cell on an LR click callback. Every covered neighbour is uncovered as in {@link #uncoverCell},
+     * the game may end by this method.
      *
      * @param row row index of the cell
      * @param col column index of the cell
-     * @return true if can infer and expand; false if click on invalid cells or lack conditions to auto uncover
+     * @return the result of the move; not applied if the game is over, if click on invalid cells or lack conditions
+     * to auto uncover, or if every neighbour is uncovered or flagged already
      */
-    public boolean inferOnCell(int row, int col) {
-        // check (row, col) is uncovered and non zero
-        CellState state = states[row][col];
-        if (state == CellState.UNC0 || state == CellState.COVERED) { // nothing to infers
-            return false;
+    public MoveResult inferOnCell(int row, int col) {
+        // check the game goes on, (row, col) is an uncovered number and its mines are flagged
+        if (gameState != GameState.ONGOING || !canChord(row, col)) {
+            // inform the game to blink
+            return MoveResult.ignored(gameState);
         }
 
-        int minesCount = getMineCnt(row, col);
-        int flaggedCell = 0;
-        for (int i = 0; i < di.length; i++) {
-            // avoid out of bound
-            int _r = row + di[i];
-            int _c = col + dj[i];
-            if (_r >= 0 && _r < N && _c >= 0 && _c < N) {
-                if (getCellState(_r, _c) == CellState.FLAGGED) {
-                    flaggedCell++;
-                }
-            }
-        }
+        // automatically click each covered cell
+        // as we believe there are empty
+        GameState stateBefore = gameState;
+        int before = NCovered;
+        boolean hitMine = chord(row, col);
+        if (NCovered == before) // nothing left to uncover around, neither journaled nor counted
+            return MoveResult.ignored(gameState);
+        MoveResult result = endMove(hitMine, before);
+        commit(CHORD, row, col, stateBefore, false);
+        return result;
+    }
 
+    /**
+     * Journal a cell changed by the current move.
+     *
+     * @param entry the index of an uncovered cell, or the complement of the index of a cell whose flag was toggled
+     */
+    private void note(int entry) {
+        if (!historyEnabled)
+            return;
+        if (journalSize == journal.length)
+            journal = Arrays.copyOf(journal, journalSize << 1);
+        journal[journalSize++] = entry;
+    }
 
-        if (minesCount == flaggedCell) {
-            // automatically click each covered cell
-            // as we believe there are empty
-            for (int i = 0; i < di.length; i++) {
-                int _r = row + di[i];
-                int _c = col + dj[i];
-                if (_r >= 0 && _r < N && _c >= 0 && _c < N) { // prevent out of bound
-                    if (getCellState(_r, _c) == CellState.COVERED) {
-                        uncoverCell(_r, _c);
-                    }
-                }
-            }
-            return true; // performed inference
-        } else {
-            // return false to inform the game to blink
-            return false;
+    /**
+     * Close the journal of a move that changed the board, and drop the moves undone before it unless it is redone.
+     */
+    private void commit(int op, int row, int col, GameState stateBefore, boolean placedMines) {
+        if (!historyEnabled)
+            return;
+        if (historyTop == moveEnds.length) {
+            moveEnds = Arrays.copyOf(moveEnds, historyTop << 1);
+            moveOps = Arrays.copyOf(moveOps, historyTop << 1);
+            moveBefore = Arrays.copyOf(moveBefore, historyTop << 1);
         }
+        moveEnds[historyTop] = journalSize;
+        moveOps[historyTop] = ((long) op << 32) | (row * N + col);
+        moveBefore[historyTop] = stateBefore.ordinal() | (placedMines ? PLACED_MINES : 0);
+        historyTop++;
+        if (!redoing)
+            historySize = historyTop;
+    }
+
+    private void clearHistory() {
+        journalSize = historyTop = historySize = 0;
     }
 
     /**
-     * Restore the appearance of temporarily marked as UNC0 cells.
-     * Use di0 and dj0, need to blink the center cell as well.
-     * @param row
-     * @param col
+     * Journal the moves for {@link #undo}, or stop and drop the history, which is the default.
+     *
+     * @param enabled whether the moves are journaled
      */
-    public void restoreTempUNC0(int row, int col) {
-        for (int i = 0; i < di0.length; i++) {
-            int _r = row + di0[i];
-            int _c = col + dj0[i];
-            if (_r >= 0 && _r < N && _c >= 0 && _c < N) { // prevent out of bound
-                if (getCellState(_r, _c) == CellState.TEMP_UNC0) {
-                    // set TEMP_UNC0 back to COVERED
-                    states[_r][_c] = CellState.COVERED;
+    public void setHistoryEnabled(boolean enabled) {
+        historyEnabled = enabled;
+        clearHistory();
+    }
+
+    /**
+     * Take back the last move applied: the cells it uncovered are covered again, the flag it toggled is toggled
+     * back, the game is in the state it was before, and if it was the first click the mines are not placed any more.
+     *
+     * @return false if there is no move to undo, e.g. the history is not enabled
+     */
+    public boolean undo() {
+        if (historyTop == 0)
+            return false;
+        historyTop--;
+        int start = historyTop == 0 ? 0 : moveEnds[historyTop - 1];
+        for (int i = journalSize - 1; i >= start; i--) {
+            int entry = journal[i];
+            if (entry >= 0) {
+                clear(revealed, entry / N, entry % N);
+                NCovered++;
+                fireCellChanged(entry / N, entry % N);
+            } else {
+                int key = ~entry;
+                if (test(flagged, key / N, key % N)) {
+                    clear(flagged, key / N, key % N);
+                    NFlagged--;
+                } else {
+                    set(flagged, key / N, key % N);
+                    NFlagged++;
                 }
+                fireCellChanged(key / N, key % N);
             }
         }
+        journalSize = start;
+
+        int before = moveBefore[historyTop];
+        GameState stateBefore = GameState.values()[before & 0xFF];
+        boolean changed = stateBefore != gameState;
+        gameState = stateBefore;
+        if ((before & PLACED_MINES) != 0) {
+            Arrays.fill(mine, 0L);
+            minesPlaced = false;
+        }
+        clearBlinking();
+        if (changed)
+            fireBoardChanged(); // the mines hide again
+        return true;
     }
 
     /**
-     * Temporarily change the appearance surrounding cells of (row, col) to UNC0;
-     * @param row the center cell row index
-     * @param col the center cell column index
+     * Apply again the last move undone. The mines of a first click are placed the same, from the seed.
+     *
+     * @return the result of the move, null if there is no move to redo
      */
-    public void changeTempToUNC0(int row, int col) {
-        for (int i = 0; i < di0.length; i++) {
-            int _r = row + di0[i];
-            int _c = col + dj0[i];
-            if (_r >= 0 && _r < N && _c >= 0 && _c < N) { // prevent out of bound
-                if (getCellState(_r, _c) == CellState.COVERED) {
-                    // will change back later, does not affect the game
-                    states[_r][_c] = CellState.TEMP_UNC0;
-                }
+    public MoveResult redo() {
+        if (historyTop == historySize)
+            return null;
+        long op = moveOps[historyTop];
+        int key = (int) op;
+        redoing = true;
+        try {
+            switch ((int) (op >>> 32)) {
+                case UNCOVER:
+                    return uncoverCell(key / N, key % N);
+                case CHORD:
+                    return inferOnCell(key / N, key % N);
+                default:
+                    toggleFlag(key / N, key % N);
+                    return MoveResult.applied(0, gameState);
             }
+        } finally {
+            redoing = false;
         }
     }
 
     /**
-     * Offset (row, col) indices by 1 to find its mineCnt.
+     * @return the number of moves that can be undone
+     */
+    public int getUndoable() {
+        return historyTop;
+    }
+
+    /**
+     * @return the number of moves that can be redone
+     */
+    public int getRedoable() {
+        return historySize - historyTop;
+    }
+
+    /**
+     * Count the mines of the adjacent cells of (row, col), three bits per row at a time.
      * @param row row index
      * @param col column index
      * @return mine counter of this cell
      */
+    @Override
     protected int getMineCnt(int row, int col) {
-        return mineCnt[row + 1][col + 1];
+        long center = bits3(mine, row, col) & ~2L; // the cell itself does not count
+        return Long.bitCount(bits3(mine, row - 1, col)) + Long.bitCount(center)
+                + Long.bitCount(bits3(mine, row + 1, col));
     }
 
     /**
-     * Get the cell state of (row, col)
+     * Get the cell state of (row, col). Once the game stops, covered mines show as {@code FLAGGED} if the player
+     * has won and as {@code MINE} if he has lost; flags on cells that are not a mine show as {@code WRONG_FLAG}.
      * @param row row index
      * @param col column index
      * @return the cellState at (row, col)
      */
     public CellState getCellState(int row, int col) {
-        return states[row][col];
+        boolean isMine = test(mine, row, col);
+        if (test(revealed, row, col))
+            return isMine ? CellState.FIRED_MINE : uncoveredStates[getMineCnt(row, col)];
+        if (test(flagged, row, col))
+            return (gameState != GameState.ONGOING && !isMine) ? CellState.WRONG_FLAG : CellState.FLAGGED;
+        if (isMine && gameState != GameState.ONGOING)
+            return gameState == GameState.WON ? CellState.FLAGGED : CellState.MINE;
+        if (isBlinking(row, col))
+            return CellState.TEMP_UNC0;
+        return CellState.COVERED;
+    }
+
+    /**
+     * Find the next frontier cell: an uncovered cell with at least one adjacent cell that is neither uncovered
+     * nor flagged. The open cells are dilated with word-wide shifts, so a whole word of 64 cells is tested at once.
+     *
+     * @param from the cell index ({@code row * N + col}) to start searching from, inclusive
+     * @return the index of the next frontier cell, or -1 if there is none
+     */
+    public int nextFrontierCell(int from) {
+        return nextFrontierCell(from, N * N);
+    }
+
+    /**
+     * Find the next frontier cell before a bound, see {@link #nextFrontierCell(int)}. Only the rows up to the bound
+     * are scanned.
+     *
+     * @param from the cell index to start searching from, inclusive
+     * @param to   the cell index to stop searching at, exclusive
+     * @return the index of the next frontier cell, or -1 if there is none before {@code to}
+     */
+    public int nextFrontierCell(int from, int to) {
+        if (from < 0)
+            from = 0;
+        to = Math.min(to, N * N);
+        if (from >= to)
+            return -1;
+        int firstRow = from / N;
+        int lastRow = (to - 1) / N;
+        int firstBit = from % N + 1; // padded position of the first column to look at
+        for (int row = firstRow; row <= lastRow; row++) {
+            int R = row + 1; // plane row
+            for (int j = (row == firstRow) ? firstBit >>> 6 : 0; j < W; j++) {
+                long frontier = revealed[R * W + j];
+                if (row == firstRow && j == firstBit >>> 6)
+                    frontier &= -1L << (firstBit & 63); // skip the columns before from
+                if (frontier == 0)
+                    continue;
+                frontier &= spread(R - 1, j) | spread(R, j) | spread(R + 1, j);
+                if (frontier != 0) {
+                    int key = row * N + (j << 6) + Long.numberOfTrailingZeros(frontier) - 1;
+                    return key < to ? key : -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The open (neither uncovered nor flagged) cells of word j of plane row R, dilated by one column both ways.
+     */
+    private long spread(int R, int j) {
+        if (R < 1 || R > N)
+            return 0L;
+        long o = openBits(R, j);
+        long left = j > 0 ? openBits(R, j - 1) : 0L;
+        long right = j + 1 < W ? openBits(R, j + 1) : 0L;
+        return o | (o << 1) | (left >>> 63) | (o >>> 1) | (right << 63);
+    }
+
+    private long openBits(int R, int j) {
+        int w = R * W + j;
+        return ~(revealed[w] | flagged[w]) & colMask[j];
     }
 
     /**
      * Flag or un-flag a cell.
      * @param row row index
      * @param col column index
-     * @return the change of mines remaining to be discovered. -1 if flag a cell; 1 if unflag a cell; 0 if not viable.
+     * @return the change of mines remaining to be discovered. -1 if flag a cell; 1 if unflag a cell; 0 if not viable,
+     * or if the game is over.
      */
     public int toggleFlag(int row, int col) {
+        if (gameState != GameState.ONGOING)
+            return 0;
         int delta = 0;
-        if (states[row][col] == CellState.COVERED) {
+        CellState state = getCellState(row, col);
+        if (state == CellState.COVERED) {
             // flag one cell
-            states[row][col] = CellState.FLAGGED;
+            set(flagged, row, col);
+            NFlagged++;
             delta = -1;
-        } else if (states[row][col] == CellState.FLAGGED) {
-            states[row][col] = CellState.COVERED;
+        } else if (state == CellState.FLAGGED && test(flagged, row, col)) {
+            clear(flagged, row, col);
+            NFlagged--;
             delta = 1;
         }
+        if (delta != 0) {
+            note(~(row * N + col));
+            commit(FLAG, row, col, gameState, false);
+            fireCellChanged(row, col);
+        }
         return delta;
     }
 
+    /**
+     * Return the number of flagged cells.
+     *
+     * @return the number of flags placed
+     */
+    public int getNFlagged() {
+        return NFlagged;
+    }
+
+    /**
+     * The bit planes mine, revealed and flagged, guards included, for {@link BoardSnapshot}.
+     */
+    long[][] planes() {
+        return new long[][]{mine, revealed, flagged};
+    }
+
+    /**
+     * @return true once the mines of the current game are placed
+     */
+    boolean isMinesPlaced() {
+        return minesPlaced;
+    }
+
+    /**
+     * Resume a game whose planes were just read into {@link #planes()}, for {@link BoardSnapshot}.
+     */
+    void restore(int NCovered, GameState gameState, boolean minesPlaced) {
+        this.NCovered = NCovered;
+        this.gameState = gameState;
+        this.minesPlaced = minesPlaced;
+        NFlagged = 0;
+        for (long w : flagged)
+            NFlagged += Long.bitCount(w);
+        clearBlinking();
+        clearHistory();
+        fireBoardChanged();
+    }
+
+    /**
+     * @return the name of the generator algorithm of the mine placement
+     */
+    public String getGeneratorName() {
+        return generator.name();
+    }
+
+    /**
+     * Get the seed of the current game.
+     * @return the seed the mines are placed with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return true if the first uncovered cell and its neighbours are kept free of mines
+     */
+    public boolean isFirstClickSafe() {
+        return firstClickSafe;
+    }
+
+    /**
+     * Get the dimension of the board.
+     * @return the number of rows (and columns) of the board
+     */
+    public int getN() {
+        return N;
+    }
+
+    public int getRows() {
+        return N;
+    }
+
+    public int getCols() {
+        return N;
+    }
+
+    /**
+     * Get the total number of mines in the board.
+     * @return the number of mines
+     */
+    public int getNMines() {
+        return NMines;
+    }
+
     /**
      * Get current game state.
-     * @return
+     * @return the state of the game
      */
     public GameState getGameState() {
         return gameState;
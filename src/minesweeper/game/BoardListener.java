@@ -0,0 +1,21 @@
+package minesweeper.game;
+
+/**
+ * Listens to the changes of the public state of the cells of a {@link Board}. Callbacks run synchronously on the
+ * thread applying the move, in the middle of it, so they must be cheap and must not apply moves themselves.
+ */
+public interface BoardListener {
+    /**
+     * The public state of a cell changed: uncovered, flagged, unflagged, or blinking.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     */
+    void cellChanged(int row, int col);
+
+    /**
+     * Possibly every cell changed at once: a new game started, or the game ended and the mines are shown.
+     */
+    default void boardChanged() {
+    }
+}
@@ -0,0 +1,126 @@
+package minesweeper.game;
+
+import minesweeper.game.states.GameState;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Saves a {@link Board} in the middle of a game to a file and restores it, through a memory-mapped file.
+ * <p>
+ * The snapshot is a header followed by the three bit planes of the board as they are in memory, guards included:
+ * <pre>
+ *   "MSSN" | version | N | NMines | NCovered | game state | first click safe | mines placed | seed | generator
+ *   mine plane | revealed plane | flagged plane     (N + 2) * W words each, little-endian
+ * </pre>
+ * The header takes {@link #HEADER_BYTES}, the name of the generator algorithm in UTF-8 included. The planes are
+ * copied in bulk between the arrays of the board and the mapping: no copy of the board is made on the heap, and the
+ * operating system writes the pages out at its pace. The largest board, 4096x4096, is a file of about 6.4 MB.
+ * <p>
+ * The blinking cells are not saved, and the seeds of the games after the restored one are derived from its seed.
+ */
+public final class BoardSnapshot {
+    static final int MAGIC = 0x4D53534E; // "MSSN"
+    static final int VERSION = 1;
+    /**
+     * The size of the header, the planes start after it, aligned on a word.
+     */
+    static final int HEADER_BYTES = 128;
+    private static final int MAX_GENERATOR_NAME = HEADER_BYTES - 40;
+
+    private BoardSnapshot() {
+    }
+
+    /**
+     * Save a board to a file, replacing any.
+     *
+     * @param board the board
+     * @param path  the file of the snapshot
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Board board, Path path) throws IOException {
+        long[][] planes = board.planes();
+        byte[] name = board.getGeneratorName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_GENERATOR_NAME)
+            throw new IOException("generator name too long: " + board.getGeneratorName());
+        long size = HEADER_BYTES + 8L * planes.length * planes[0].length;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(board.getN())
+                    .putInt(board.getNMines())
+                    .putInt(board.getNCovered())
+                    .put((byte) board.getGameState().ordinal())
+                    .put((byte) (board.isFirstClickSafe() ? 1 : 0))
+                    .put((byte) (board.isMinesPlaced() ? 1 : 0))
+                    .put((byte) 0)
+                    .putLong(board.getSeed())
+                    .putInt(name.length)
+                    .put(name);
+            map.position(HEADER_BYTES);
+            LongBuffer words = map.asLongBuffer();
+            for (long[] plane : planes)
+                words.put(plane);
+            map.force();
+        }
+    }
+
+    /**
+     * Restore a board from a file. The board has no listener.
+     *
+     * @param path the file of the snapshot
+     * @return the board, in the state it was saved in
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static Board load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("not a board snapshot: " + path);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt() != MAGIC)
+                throw new IOException("not a board snapshot: " + path);
+            if (map.getInt() != VERSION)
+                throw new IOException("unknown board snapshot version: " + path);
+            int N = map.getInt(), NMines = map.getInt(), NCovered = map.getInt();
+            int state = map.get();
+            boolean firstClickSafe = map.get() != 0, minesPlaced = map.get() != 0;
+            map.get();
+            long seed = map.getLong();
+            int nameLength = map.getInt();
+            if (N < 10 || N > Board.MAX_N || NMines < 1 || NMines > N * N || NCovered < 0 || NCovered > N * N
+                    || state < 0 || state >= GameState.values().length
+                    || nameLength < 0 || nameLength > MAX_GENERATOR_NAME)
+                throw new IOException("corrupt board snapshot header: " + path);
+            byte[] name = new byte[nameLength];
+            map.get(name);
+
+            Board board;
+            try {
+                board = new Board(N, NMines, seed, firstClickSafe,
+                        RandomGeneratorFactory.of(new String(name, StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("unknown generator in board snapshot: " + path, e);
+            }
+            long[][] planes = board.planes();
+            if (channel.size() != HEADER_BYTES + 8L * planes.length * planes[0].length)
+                throw new IOException("board snapshot of the wrong size: " + path);
+            map.position(HEADER_BYTES);
+            LongBuffer words = map.asLongBuffer();
+            for (long[] plane : planes)
+                words.get(plane);
+            board.restore(NCovered, GameState.values()[state], minesPlaced);
+            return board;
+        }
+    }
+}
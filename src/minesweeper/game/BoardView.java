@@ -0,0 +1,75 @@
+package minesweeper.game;
+
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+/**
+ * Read-only view of a board: what a player perceives of the game, the public {@link CellState} of each cell and the
+ * state of the game, never the mines themselves. Solvers deduce their moves from a view and never change the board.
+ */
+public interface BoardView {
+    /**
+     * @return the number of rows of the board
+     */
+    int getRows();
+
+    /**
+     * @return the number of columns of the board
+     */
+    int getCols();
+
+    /**
+     * @return the total number of mines in the board
+     */
+    int getNMines();
+
+    /**
+     * @return the number of cells still covered, flagged cells included
+     */
+    int getNCovered();
+
+    /**
+     * Get the public state of a cell.
+     *
+     * @param row row index
+     * @param col column index
+     * @return the cellState at (row, col)
+     */
+    CellState getCellState(int row, int col);
+
+    /**
+     * Find the next uncovered cell with at least one adjacent cell that is neither uncovered nor flagged.
+     *
+     * @param from the cell index ({@code row * getCols() + col}) to start searching from, inclusive
+     * @return the index of the next frontier cell, or -1 if there is none
+     */
+    int nextFrontierCell(int from);
+
+    /**
+     * Find the next frontier cell before a bound, only looking at the rows up to the bound.
+     *
+     * @param from the cell index to start searching from, inclusive
+     * @param to   the cell index to stop searching at, exclusive
+     * @return the index of the next frontier cell, or -1 if there is none before {@code to}
+     */
+    int nextFrontierCell(int from, int to);
+
+    /**
+     * @return the state of the game
+     */
+    GameState getGameState();
+
+    /**
+     * Register a listener of the changes of cells.
+     *
+     * @param listener the listener
+     */
+    void addBoardListener(BoardListener listener);
+
+    /**
+     * Unregister a listener of the changes of cells.
+     *
+     * @param listener the listener
+     */
+    void removeBoardListener(BoardListener listener);
+}
@@ -0,0 +1,38 @@
+package minesweeper.game;
+
+/**
+ * The cells of a square chunk of a board, one word per row of each plane (mine, revealed, flagged): bit {@code c}
+ * of word {@code r} is cell (r, c) of the chunk. Cells are addressed by their board coordinates, of which only the
+ * low bits are used.
+ */
+final class Chunk {
+    /**
+     * The side of a chunk, one word per row.
+     */
+    static final int SIZE = 64;
+    static final int SHIFT = 6;
+
+    final long[] mine;
+    final long[] revealed = new long[SIZE];
+    final long[] flagged = new long[SIZE];
+
+    Chunk() {
+        this(new long[SIZE]);
+    }
+
+    Chunk(long[] mine) {
+        this.mine = mine;
+    }
+
+    static boolean test(long[] plane, int row, int col) {
+        return (plane[row & (SIZE - 1)] & (1L << col)) != 0;
+    }
+
+    static void set(long[] plane, int row, int col) {
+        plane[row & (SIZE - 1)] |= 1L << col;
+    }
+
+    static void flip(long[] plane, int row, int col) {
+        plane[row & (SIZE - 1)] ^= 1L << col;
+    }
+}
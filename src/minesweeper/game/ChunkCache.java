@@ -0,0 +1,364 @@
+package minesweeper.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The resident chunks of an unbounded board, least recently used first, within a memory budget.
+ * <p>
+ * When the budget is exceeded, the least recently used chunk is evicted: its mines are dropped, as they can be
+ * generated again, and what the player did on it (the uncovered and flagged cells) is written to a file as a compact
+ * delta. A row of a plane that is all clear or all set costs a bit in a mask, only the other rows are kept. When the
+ * chunk is needed again, it is generated, its delta read back and its slot of the file reused.
+ * <p>
+ * The budget counts the resident chunks and the index of the deltas in the file, {@link #INDEX_BYTES} per evicted
+ * chunk: the longer the player goes, the fewer chunks stay resident, down to {@link #MIN_CHUNKS}. The file is
+ * created on the first eviction with a delta, and deleted when the cache is closed or the JVM exits.
+ */
+public final class ChunkCache {
+    /**
+     * The approximate heap cost of a resident chunk: its three planes and its entry in the cache.
+     */
+    public static final int CHUNK_BYTES = 3 * (16 + 8 * Chunk.SIZE) + 16 + 64;
+    /**
+     * The approximate heap cost of a delta in the file: its entry in the index, with the boxed key and slot.
+     */
+    public static final int INDEX_BYTES = 32 + 16 + 16;
+    /**
+     * The fewest chunks the cache holds whatever its budget, enough for a cell, its neighbours and a cascade step.
+     */
+    public static final int MIN_CHUNKS = 16;
+    /**
+     * A slot of the file: the lengths of the two packed planes in a word, then the planes.
+     */
+    static final int SLOT_BYTES = 8 * (1 + 2 * (2 + Chunk.SIZE));
+
+    /**
+     * Generates the mines of a chunk.
+     */
+    interface Source {
+        long[] mines(int chunkRow, int chunkCol);
+    }
+
+    private final Source source;
+    private final long budgetBytes;
+    private final Map<Long, Chunk> resident;
+    /**
+     * The slot in the file of the delta of each evicted chunk that has one.
+     */
+    private final Map<Long, Integer> spilled = new HashMap<>();
+    /**
+     * The slots of the file restored since they were written, reused before the file grows.
+     */
+    private int[] freeSlots = new int[16];
+    private int nFree;
+    private int slots;
+    private Path path;
+    private FileChannel file;
+    private final ByteBuffer buffer = ByteBuffer.allocate(SLOT_BYTES);
+
+    /**
+     * The chunk of the last lookup: a cell and most of its neighbours fall in the same chunk.
+     */
+    private long lastKey;
+    private Chunk last;
+
+    private long hits, misses, evictions, restored, writes;
+
+    /**
+     * @param budgetBytes the memory the resident chunks and the index of the deltas may take, at least
+     *                    {@link #MIN_CHUNKS} chunks are kept
+     * @param source      generates the mines of a chunk
+     */
+    ChunkCache(long budgetBytes, Source source) {
+        this.source = source;
+        this.budgetBytes = budgetBytes;
+        int initial = (int) Math.max(MIN_CHUNKS, Math.min(1 << 16, budgetBytes / CHUNK_BYTES));
+        this.resident = new LinkedHashMap<>(initial, 0.75f, true);
+    }
+
+    private static long key(int chunkRow, int chunkCol) {
+        return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get a chunk, generating it if it is not resident. The chunk may be evicted by the next call, so it must not
+     * be kept.
+     *
+     * @param chunkRow the row of the chunk
+     * @param chunkCol the column of the chunk
+     * @return the chunk
+     */
+    Chunk get(int chunkRow, int chunkCol) {
+        long key = key(chunkRow, chunkCol);
+        if (last != null && key == lastKey) { // already the most recently used
+            hits++;
+            return last;
+        }
+        Chunk chunk = resident.get(key);
+        if (chunk != null) {
+            hits++;
+        } else {
+            misses++;
+            chunk = new Chunk(source.mines(chunkRow, chunkCol));
+            Integer slot = spilled.remove(key);
+            if (slot != null) {
+                read(slot, chunk);
+                restored++;
+            }
+            resident.put(key, chunk);
+            trim();
+        }
+        lastKey = key;
+        last = chunk;
+        return chunk;
+    }
+
+    /**
+     * @return true if the chunk is resident or has a delta; a chunk that is neither was never changed
+     */
+    boolean isKnown(int chunkRow, int chunkCol) {
+        long key = key(chunkRow, chunkCol);
+        return resident.containsKey(key) || spilled.containsKey(key);
+    }
+
+    /**
+     * Evict the least recently used chunks until the cache fits its budget.
+     */
+    private void trim() {
+        Iterator<Map.Entry<Long, Chunk>> eldest = resident.entrySet().iterator();
+        while (resident.size() > MIN_CHUNKS && getMemoryBytes() > budgetBytes) {
+            Map.Entry<Long, Chunk> entry = eldest.next();
+            eldest.remove();
+            evict(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void evict(long key, Chunk chunk) {
+        evictions++;
+        long[] revealed = pack(chunk.revealed), flagged = pack(chunk.flagged);
+        if (revealed == null && flagged == null)
+            return; // nothing but mines, generated again if needed
+        spilled.put(key, write(revealed, flagged));
+    }
+
+    /**
+     * Pack a plane: null if it is all clear, else the mask of the rows that are not clear, the mask of the rows that
+     * are all set, then the other rows in order.
+     */
+    private static long[] pack(long[] plane) {
+        long nonZero = 0, full = 0;
+        int partial = 0;
+        for (int r = 0; r < Chunk.SIZE; r++) {
+            if (plane[r] != 0)
+                nonZero |= 1L << r;
+            if (plane[r] == -1L)
+                full |= 1L << r;
+            else if (plane[r] != 0)
+                partial++;
+        }
+        if (nonZero == 0)
+            return null;
+        long[] packed = new long[2 + partial];
+        packed[0] = nonZero;
+        packed[1] = full;
+        int k = 2;
+        for (int r = 0; r < Chunk.SIZE; r++)
+            if (plane[r] != 0 && plane[r] != -1L)
+                packed[k++] = plane[r];
+        return packed;
+    }
+
+    /**
+     * Unpack a plane of {@code length} words from the buffer, see {@link #pack}.
+     */
+    private void unpack(int length, long[] plane) {
+        if (length == 0)
+            return;
+        long nonZero = buffer.getLong(), full = buffer.getLong();
+        for (int r = 0; r < Chunk.SIZE; r++) {
+            if ((full & (1L << r)) != 0)
+                plane[r] = -1L;
+            else if ((nonZero & (1L << r)) != 0)
+                plane[r] = buffer.getLong();
+        }
+    }
+
+    /**
+     * Write a delta to a free slot of the file.
+     *
+     * @return the slot
+     */
+    private int write(long[] revealed, long[] flagged) {
+        int slot = nFree > 0 ? freeSlots[--nFree] : slots++;
+        buffer.clear();
+        buffer.putLong((long) (revealed == null ? 0 : revealed.length) << 32
+                | (flagged == null ? 0 : flagged.length));
+        for (long[] packed : new long[][]{revealed, flagged})
+            if (packed != null)
+                for (long word : packed)
+                    buffer.putLong(word);
+        buffer.flip();
+        try {
+            if (file == null) {
+                path = Files.createTempFile("chunks", ".delta");
+                path.toFile().deleteOnExit();
+                file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            long position = (long) slot * SLOT_BYTES;
+            while (buffer.hasRemaining())
+                position += file.write(buffer, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writes++;
+        return slot;
+    }
+
+    /**
+     * Read a delta back into a generated chunk and free its slot.
+     */
+    private void read(int slot, Chunk chunk) {
+        buffer.clear();
+        try {
+            long position = (long) slot * SLOT_BYTES;
+            while (buffer.hasRemaining())
+                if (file.read(buffer, position + buffer.position()) < 0)
+                    break; // the last slot of the file may be short
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        long lengths = buffer.getLong();
+        unpack((int) (lengths >>> 32), chunk.revealed);
+        unpack((int) lengths, chunk.flagged);
+        if (nFree == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, nFree << 1);
+        freeSlots[nFree++] = slot;
+    }
+
+    /**
+     * Drop every chunk and delta, for a new game. The metrics are kept.
+     */
+    void clear() {
+        resident.clear();
+        spilled.clear();
+        last = null;
+        nFree = 0;
+        slots = 0;
+        if (file != null) {
+            try {
+                file.truncate(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Drop every chunk and delta and delete the file.
+     */
+    void close() {
+        clear();
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                file = null;
+            }
+        }
+    }
+
+    /**
+     * @return the memory budget of the cache
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return the approximate memory taken by the resident chunks and the index of the deltas, at most the budget
+     * unless only {@link #MIN_CHUNKS} chunks are resident
+     */
+    public long getMemoryBytes() {
+        return (long) resident.size() * CHUNK_BYTES + (long) spilled.size() * INDEX_BYTES;
+    }
+
+    /**
+     * @return the number of chunks in memory
+     */
+    public int getResident() {
+        return resident.size();
+    }
+
+    /**
+     * @return the number of evicted chunks kept as a delta in the file
+     */
+    public int getDeltas() {
+        return spilled.size();
+    }
+
+    /**
+     * @return the size of the file of the deltas, freed slots included
+     */
+    public long getFileBytes() {
+        return (long) slots * SLOT_BYTES;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of chunks evicted
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of deltas written to the file
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * @return the number of chunks generated again and restored from their delta
+     */
+    public long getRestored() {
+        return restored;
+    }
+
+    /**
+     * @return the share of the lookups that found the chunk resident
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 1 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("resident %d, deltas %d (file %d KB), memory %d/%d KB, hit rate %.4f, misses %d, "
+                        + "evictions %d, restored %d", getResident(), getDeltas(), getFileBytes() >> 10,
+                getMemoryBytes() >> 10, budgetBytes >> 10, getHitRate(), misses, evictions, restored);
+    }
+}
@@ -0,0 +1,80 @@
+package minesweeper.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * The mines of the chunks of an unbounded board, as a pure function of the seed and of the chunk coordinates: the
+ * same chunk is generated the same way each time it is asked for, in any order, so a chunk can be dropped and
+ * generated again.
+ * <p>
+ * Each chunk gets a number of mines drawn from the binomial distribution of its cells at the density of the board
+ * (approximated by a normal one), placed with Floyd's sampling as on the finite boards; both draws come from a
+ * generator seeded with a hash of the seed and of the chunk coordinates.
+ */
+public final class ChunkGenerator {
+    private static final int CELLS = Chunk.SIZE * Chunk.SIZE;
+    /**
+     * No cell of a chunk is kept free of mines by the generator, the board clears its safe zone itself.
+     */
+    private static final int[] NO_CELL = new int[0];
+
+    private final long seed;
+    private final double density;
+
+    /**
+     * @param seed    the seed of the board
+     * @param density the probability of a cell to be a mine
+     */
+    public ChunkGenerator(long seed, double density) {
+        this.seed = seed;
+        this.density = density;
+    }
+
+    /**
+     * Hash the seed and the chunk coordinates into a well spread seed (the finalizer of MurmurHash3).
+     */
+    private long hash(int chunkRow, int chunkCol) {
+        long z = seed + (((long) chunkRow << 32) ^ (chunkCol & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Generate the mines of a chunk.
+     *
+     * @param chunkRow the row of the chunk, {@code row >> 6} of its cells
+     * @param chunkCol the column of the chunk, {@code col >> 6} of its cells
+     * @return the mine plane of the chunk, one word per row
+     */
+    public long[] mines(int chunkRow, int chunkCol) {
+        SplittableRandom random = new SplittableRandom(hash(chunkRow, chunkCol));
+        double sd = Math.sqrt(CELLS * density * (1 - density));
+        int mines = (int) Math.max(0, Math.min(CELLS, Math.round(CELLS * density + sd * random.nextGaussian())));
+        long[] plane = new long[Chunk.SIZE];
+        AbstractBoard.sample(random, CELLS, mines, NO_CELL, pos -> {
+            if ((plane[pos >>> Chunk.SHIFT] & (1L << pos)) != 0)
+                return false;
+            plane[pos >>> Chunk.SHIFT] |= 1L << pos;
+            return true;
+        });
+        return plane;
+    }
+
+    /**
+     * @param row row of a cell
+     * @param col column of a cell
+     * @return true if the cell is a mine; generates its whole chunk
+     */
+    public boolean isMine(int row, int col) {
+        return Chunk.test(mines(row >> Chunk.SHIFT, col >> Chunk.SHIFT), row, col);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getDensity() {
+        return density;
+    }
+}
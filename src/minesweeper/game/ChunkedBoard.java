@@ -0,0 +1,596 @@
+package minesweeper.game;
+
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A rectangular board of any size up to {@link #MAX_CELLS} cells, where memory is only spent on the parts that were
+ * touched. A {@link GameEngine} plays it instead of a {@link Board} when the board is larger than
+ * {@link Board#MAX_N}.
+ * <p>
+ * The board is cut into chunks of {@code CHUNK x CHUNK} cells. A chunk is allocated the first time one of its cells
+ * is uncovered or flagged, and its mines are placed then, so a chunk never played costs a null reference. Each row
+ * of a chunk is a single word of each plane (mine, revealed, flagged).
+ * <p>
+ * The mines of a chunk are a function of the seed of the game and of the first click only: the number of mines of
+ * each chunk comes from splitting the mines of the board in halves, recursively down to the chunk, each split drawn
+ * from a generator seeded with a hash of the seed and of the node of the split; the mines are then placed in the
+ * chunk with {@link #sample}, from a generator seeded with a hash of the seed and of the chunk. The board holds
+ * exactly its number of mines, whichever chunks are allocated and in whichever order.
+ * <p>
+ * The mines of a chunk that is not allocated, counted around an uncovered cell or shown once the game is over, are
+ * generated again into a small direct-mapped cache instead: reading the whole board after the game does not
+ * allocate it.
+ * <p>
+ * Cascades cross chunks transparently: cells are addressed by (row, col) and the chunk is looked up for each.
+ * The board has no history of moves.
+ */
+public class ChunkedBoard extends AbstractBoard implements PlayableBoard {
+    /**
+     * The side of a chunk, one word per row.
+     */
+    public static final int CHUNK = Chunk.SIZE;
+    private static final int SHIFT = Chunk.SHIFT;
+    /**
+     * The largest number of cells of a board, so that a cell index fits an int.
+     */
+    public static final long MAX_CELLS = Integer.MAX_VALUE;
+    /**
+     * The name of the mine placement of the board, as recorded by {@link MoveLog}.
+     */
+    public static final String GENERATOR = "ChunkedSplittableRandom";
+
+    private final int rows;
+    private final int cols;
+    private final int NMines;
+    private final boolean firstClickSafe;
+    private final int chunkRows;
+    private final int chunkCols;
+    /**
+     * The chunks in row-major order, null until touched.
+     */
+    private final Chunk[] chunks;
+    private int allocated;
+    /**
+     * The number of chunks allocated in each row of chunks, to skip the empty ones when looking for the frontier.
+     */
+    private final int[] allocatedInRow;
+
+    /**
+     * The mine planes of chunks that are not allocated, slot {@code index % length}, with the index of the chunk
+     * each slot holds, -1 for none. Three rows of chunks fit, the neighbours of a row of cells.
+     */
+    private final long[][] ghostMines;
+    private final int[] ghostIndex;
+
+    /**
+     * The seeds of the successive games.
+     */
+    private final SplittableRandom seeds;
+    private long seed;
+    /**
+     * The cells of the first click kept free of mines, as {@code row * cols + col}; empty until the first click.
+     */
+    private long[] safe = new long[0];
+    private boolean started;
+
+    private int NCovered;
+    private int NFlagged;
+    private GameState gameState;
+
+    /**
+     * @param rows           the number of rows
+     * @param cols           the number of columns
+     * @param NMines         the number of mines
+     * @param seed           the seed of the first game, the seeds of the next games are derived from it
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     * @throws IllegalArgumentException if the board has no cell, more than {@link #MAX_CELLS}, or too many mines
+     */
+    public ChunkedBoard(int rows, int cols, int NMines, long seed, boolean firstClickSafe) {
+        super(1 << 10);
+        if (rows < 1 || cols < 1 || (long) rows * cols > MAX_CELLS)
+            throw new IllegalArgumentException("invalid board size: " + rows + "x" + cols);
+        if (NMines < 1 || NMines >= (long) rows * cols - (firstClickSafe ? 9 : 0))
+            throw new IllegalArgumentException("invalid number of mines: " + NMines);
+        this.rows = rows;
+        this.cols = cols;
+        this.NMines = NMines;
+        this.firstClickSafe = firstClickSafe;
+        this.chunkRows = (rows + CHUNK - 1) >>> SHIFT;
+        this.chunkCols = (cols + CHUNK - 1) >>> SHIFT;
+        this.chunks = new Chunk[chunkRows * chunkCols];
+        this.allocatedInRow = new int[chunkRows];
+        this.ghostMines = new long[Math.min(chunks.length, 3 * chunkCols + 1)][];
+        this.ghostIndex = new int[ghostMines.length];
+        this.seeds = new SplittableRandom(seed);
+        reset(seed);
+    }
+
+    /**
+     * Start a new game, with the next seed derived from the seed of the board.
+     */
+    public void reset() {
+        reset(seeds.nextLong());
+    }
+
+    /**
+     * Start a new game with the given seed. Every chunk is dropped.
+     *
+     * @param seed the seed of the game
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        Arrays.fill(chunks, null);
+        Arrays.fill(allocatedInRow, 0);
+        Arrays.fill(ghostIndex, -1);
+        allocated = 0;
+        safe = new long[0];
+        started = false;
+        NCovered = rows * cols;
+        NFlagged = 0;
+        clearBlinking();
+        gameState = GameState.ONGOING;
+        fireBoardChanged();
+    }
+
+    /**
+     * The chunk of a cell, allocated and mined if it was not yet.
+     */
+    private Chunk chunk(int row, int col) {
+        int index = (row >>> SHIFT) * chunkCols + (col >>> SHIFT);
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            chunk = new Chunk();
+            putMines(chunk.mine, index);
+            chunks[index] = chunk;
+            allocated++;
+            allocatedInRow[row >>> SHIFT]++;
+        }
+        return chunk;
+    }
+
+    /**
+     * The chunk of a cell if it is allocated, else null.
+     */
+    private Chunk peek(int row, int col) {
+        return chunks[(row >>> SHIFT) * chunkCols + (col >>> SHIFT)];
+    }
+
+    /**
+     * The mine plane of a chunk, generated into the ghost cache if the chunk is not allocated. Only called once the
+     * safe zone is fixed.
+     */
+    private long[] minePlane(int index) {
+        Chunk chunk = chunks[index];
+        if (chunk != null)
+            return chunk.mine;
+        int slot = index % ghostMines.length;
+        if (ghostIndex[slot] != index) {
+            if (ghostMines[slot] == null)
+                ghostMines[slot] = new long[CHUNK];
+            else
+                Arrays.fill(ghostMines[slot], 0L);
+            putMines(ghostMines[slot], index);
+            ghostIndex[slot] = index;
+        }
+        return ghostMines[slot];
+    }
+
+    @Override
+    boolean contains(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    @Override
+    boolean isRevealed(int row, int col) {
+        Chunk chunk = peek(row, col);
+        return chunk != null && Chunk.test(chunk.revealed, row, col);
+    }
+
+    @Override
+    boolean isFlagged(int row, int col) {
+        Chunk chunk = peek(row, col);
+        return chunk != null && Chunk.test(chunk.flagged, row, col);
+    }
+
+    @Override
+    boolean isMine(int row, int col) {
+        return Chunk.test(minePlane((row >>> SHIFT) * chunkCols + (col >>> SHIFT)), row, col);
+    }
+
+    // mine generation
+
+    /**
+     * Mix two values into a well spread seed (the finalizer of MurmurHash3).
+     */
+    private static long mix(long a, long b) {
+        long z = a + b * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * The number of cells of the chunks before chunk {@code index} in row-major order that may hold a mine.
+     */
+    private long available(int index) {
+        int cr = index / chunkCols, cc = index % chunkCols;
+        long before = (long) Math.min(rows, cr << SHIFT) * cols;
+        if (cr < chunkRows)
+            before += (long) Math.min(CHUNK, rows - (cr << SHIFT)) * Math.min(cols, cc << SHIFT);
+        for (long s : safe)
+            if (chunkOf(s) < index)
+                before--;
+        return before;
+    }
+
+    private int chunkOf(long key) {
+        return (int) (key / cols >>> SHIFT) * chunkCols + (int) (key % cols >>> SHIFT);
+    }
+
+    /**
+     * The number of mines of a chunk: the mines of a range of chunks are split between its halves, from the whole
+     * board down to the chunk. A split draws from the hypergeometric distribution, approximated by a normal one.
+     */
+    private int minesOf(int index) {
+        int lo = 0, hi = chunks.length;
+        long mines = NMines, node = 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            long base = available(lo);
+            long total = available(hi) - base, left = available(mid) - base;
+            long k = split(mines, left, total, mix(seed, node));
+            if (index < mid) {
+                hi = mid;
+                mines = k;
+                node = node << 1;
+            } else {
+                lo = mid;
+                mines -= k;
+                node = node << 1 | 1;
+            }
+        }
+        return (int) mines;
+    }
+
+    /**
+     * The number of {@code mines} mines among {@code total} cells that fall in the first {@code left} cells.
+     */
+    private static long split(long mines, long left, long total, long seed) {
+        long min = Math.max(0, mines - (total - left)), max = Math.min(mines, left);
+        if (min == max)
+            return min;
+        double p = (double) left / total;
+        double mean = mines * p;
+        double sd = Math.sqrt(mines * p * (1 - p) * (total - mines) / Math.max(1, total - 1));
+        long k = Math.round(mean + sd * new SplittableRandom(seed).nextGaussian());
+        return Math.max(min, Math.min(max, k));
+    }
+
+    /**
+     * Place the mines of a chunk with {@link #sample} over its cells that may hold one.
+     *
+     * @param mine  the empty mine plane of the chunk
+     * @param index the index of the chunk
+     */
+    private void putMines(long[] mine, int index) {
+        int r0 = index / chunkCols << SHIFT, c0 = index % chunkCols << SHIFT;
+        int h = Math.min(CHUNK, rows - r0), w = Math.min(CHUNK, cols - c0);
+        // the cells of the safe zone in this chunk, as sorted positions in the chunk
+        int[] skip = new int[safe.length];
+        int n = 0;
+        for (long s : safe)
+            if (chunkOf(s) == index)
+                skip[n++] = (int) (s / cols - r0) * w + (int) (s % cols - c0);
+        skip = Arrays.copyOf(skip, n);
+        Arrays.sort(skip);
+
+        sample(new SplittableRandom(mix(seed, -1L - index)), h * w - n, minesOf(index), skip, pos -> {
+            long bit = 1L << (pos % w);
+            if ((mine[pos / w] & bit) != 0)
+                return false;
+            mine[pos / w] |= bit;
+            return true;
+        });
+    }
+
+    /**
+     * Fix the safe zone around the first click, before any mine is placed: chunks allocated so far only hold flags.
+     */
+    private void start(int row, int col) {
+        started = true;
+        if (!firstClickSafe)
+            return;
+        long[] zone = new long[9];
+        int n = 0;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (contains(r, c))
+                    zone[n++] = (long) r * cols + c;
+        safe = Arrays.copyOf(zone, n);
+        // chunks allocated by flags so far were mined without the safe zone
+        Arrays.fill(ghostIndex, -1);
+        for (int index = 0; index < chunks.length; index++)
+            if (chunks[index] != null) {
+                Arrays.fill(chunks[index].mine, 0L);
+                putMines(chunks[index].mine, index);
+            }
+    }
+
+    // moves
+
+    /**
+     * The number of mines around a cell.
+     */
+    @Override
+    int getMineCnt(int row, int col) {
+        int count = 0;
+        for (int i = 0; i < di.length; i++) {
+            int r = row + di[i], c = col + dj[i];
+            if (contains(r, c) && isMine(r, c))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Uncover a cell if it is covered and not flagged.
+     *
+     * @return true if the cell has no mine around, so its neighbours are to be uncovered too
+     */
+    @Override
+    boolean reveal(int row, int col) {
+        Chunk chunk = chunk(row, col);
+        long bit = 1L << col;
+        int r = row & (CHUNK - 1);
+        if (((chunk.revealed[r] | chunk.flagged[r]) & bit) != 0)
+            return false;
+        chunk.revealed[r] |= bit;
+        NCovered--;
+        fireCellChanged(row, col);
+        return getMineCnt(row, col) == 0;
+    }
+
+    @Override
+    boolean open(int row, int col) {
+        Chunk chunk = chunk(row, col);
+        if (Chunk.test(chunk.mine, row, col)) { // hit a mine
+            Chunk.set(chunk.revealed, row, col);
+            NCovered--;
+            fireCellChanged(row, col);
+            return true;
+        }
+        cascade(row, col);
+        return false;
+    }
+
+    /**
+     * Decide the state of the game once a move is done, the mines show up through {@link #getCellState} if it is
+     * over.
+     */
+    private MoveResult endMove(boolean hitMine, int NCoveredBefore) {
+        if (hitMine)
+            gameState = GameState.LOST;
+        else if (NCovered == NMines)
+            gameState = GameState.WON;
+        if (gameState != GameState.ONGOING)
+            fireBoardChanged();
+        return MoveResult.applied(NCoveredBefore - NCovered, gameState);
+    }
+
+    /**
+     * Uncover a cell. If it is a mine the game is lost, else the region around it opens if it has no mine around.
+     * The game is won once every cell that is not a mine is uncovered.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over or the cell is not covered
+     */
+    public MoveResult uncoverCell(int row, int col) {
+        if (gameState != GameState.ONGOING || getCellState(row, col) != CellState.COVERED)
+            return MoveResult.ignored(gameState);
+        if (!started)
+            start(row, col);
+        int before = NCovered;
+        return endMove(open(row, col), before);
+    }
+
+    /**
+     * Uncover every covered neighbour of an uncovered cell whose mines are all flagged (an LR click).
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over, the cell lacks conditions to expand or every
+     * neighbour is uncovered or flagged already
+     */
+    public MoveResult inferOnCell(int row, int col) {
+        if (gameState != GameState.ONGOING || !canChord(row, col))
+            return MoveResult.ignored(gameState);
+        int before = NCovered;
+        boolean hitMine = chord(row, col);
+        if (NCovered == before) // nothing left to uncover around
+            return MoveResult.ignored(gameState);
+        return endMove(hitMine, before);
+    }
+
+    /**
+     * Flag or un-flag a covered cell.
+     *
+     * @param row row index
+     * @param col column index
+     * @return -1 if the cell was flagged, 1 if it was unflagged, 0 if the move is not viable or the game is over
+     */
+    public int toggleFlag(int row, int col) {
+        if (gameState != GameState.ONGOING)
+            return 0;
+        CellState state = getCellState(row, col);
+        if (state != CellState.COVERED && state != CellState.FLAGGED)
+            return 0;
+        // before the first click the mines of the chunk are placed again, with the safe zone, by the first click
+        Chunk chunk = chunk(row, col);
+        Chunk.flip(chunk.flagged, row, col);
+        NFlagged += state == CellState.COVERED ? 1 : -1;
+        fireCellChanged(row, col);
+        return state == CellState.COVERED ? -1 : 1;
+    }
+
+    /**
+     * Get the public state of a cell. Reading a cell never allocates its chunk: once the game is over, the mines of
+     * a chunk never played are generated into the ghost cache.
+     *
+     * @param row row index
+     * @param col column index
+     * @return the cellState at (row, col)
+     */
+    public CellState getCellState(int row, int col) {
+        Chunk chunk = peek(row, col);
+        boolean revealed = chunk != null && Chunk.test(chunk.revealed, row, col);
+        boolean flagged = chunk != null && Chunk.test(chunk.flagged, row, col);
+        if (gameState == GameState.ONGOING && !revealed) {
+            if (flagged)
+                return CellState.FLAGGED;
+            return isBlinking(row, col) ? CellState.TEMP_UNC0 : CellState.COVERED;
+        }
+        boolean isMine = isMine(row, col);
+        if (revealed)
+            return isMine ? CellState.FIRED_MINE : uncoveredStates[getMineCnt(row, col)];
+        if (flagged)
+            return isMine ? CellState.FLAGGED : CellState.WRONG_FLAG;
+        if (isMine)
+            return gameState == GameState.WON ? CellState.FLAGGED : CellState.MINE;
+        return isBlinking(row, col) ? CellState.TEMP_UNC0 : CellState.COVERED;
+    }
+
+    /**
+     * Find the next frontier cell: an uncovered cell with at least one adjacent cell that is neither uncovered
+     * nor flagged. A row of a chunk is a word, the open cells are dilated with word-wide shifts as in {@link Board};
+     * the rows of chunks with no chunk allocated are skipped.
+     *
+     * @param from the cell index ({@code row * getCols() + col}) to start searching from, inclusive
+     * @return the index of the next frontier cell, or -1 if there is none
+     */
+    public int nextFrontierCell(int from) {
+        return nextFrontierCell(from, rows * cols);
+    }
+
+    /**
+     * Find the next frontier cell before a bound, see {@link #nextFrontierCell(int)}.
+     *
+     * @param from the cell index to start searching from, inclusive
+     * @param to   the cell index to stop searching at, exclusive
+     * @return the index of the next frontier cell, or -1 if there is none before {@code to}
+     */
+    public int nextFrontierCell(int from, int to) {
+        if (from < 0)
+            from = 0;
+        to = Math.min(to, rows * cols);
+        if (from >= to)
+            return -1;
+        int firstRow = from / cols, firstCol = from % cols;
+        int lastRow = (to - 1) / cols;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int cr = row >>> SHIFT;
+            if (allocatedInRow[cr] == 0) { // nothing uncovered in these rows
+                row = (cr << SHIFT) + CHUNK - 1;
+                continue;
+            }
+            int r = row & (CHUNK - 1);
+            for (int cc = row == firstRow ? firstCol >>> SHIFT : 0; cc < chunkCols; cc++) {
+                Chunk chunk = chunks[cr * chunkCols + cc];
+                if (chunk == null)
+                    continue;
+                long frontier = chunk.revealed[r];
+                if (row == firstRow && cc == firstCol >>> SHIFT)
+                    frontier &= -1L << firstCol; // skip the columns before from
+                if (frontier == 0)
+                    continue;
+                frontier &= spread(row - 1, cc) | spread(row, cc) | spread(row + 1, cc);
+                if (frontier != 0) {
+                    int key = row * cols + (cc << SHIFT) + Long.numberOfTrailingZeros(frontier);
+                    return key < to ? key : -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The open (neither uncovered nor flagged) cells of a row of chunk column cc, dilated by one column both ways.
+     */
+    private long spread(int row, int cc) {
+        if (row < 0 || row >= rows)
+            return 0L;
+        long o = openBits(row, cc);
+        long left = cc > 0 ? openBits(row, cc - 1) : 0L;
+        long right = cc + 1 < chunkCols ? openBits(row, cc + 1) : 0L;
+        return o | (o << 1) | (left >>> 63) | (o >>> 1) | (right << 63);
+    }
+
+    private long openBits(int row, int cc) {
+        long inBoard = cc == chunkCols - 1 && (cols & (CHUNK - 1)) != 0 ? (1L << cols) - 1 : -1L;
+        Chunk chunk = chunks[(row >>> SHIFT) * chunkCols + cc];
+        if (chunk == null)
+            return inBoard;
+        int r = row & (CHUNK - 1);
+        return ~(chunk.revealed[r] | chunk.flagged[r]) & inBoard;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getNMines() {
+        return NMines;
+    }
+
+    /**
+     * @return the number of cells still covered, flagged cells included
+     */
+    public int getNCovered() {
+        return NCovered;
+    }
+
+    public int getNFlagged() {
+        return NFlagged;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isFirstClickSafe() {
+        return firstClickSafe;
+    }
+
+    /**
+     * @return {@link #GENERATOR}, the mines are not placed by a {@code RandomGeneratorFactory}
+     */
+    public String getGeneratorName() {
+        return GENERATOR;
+    }
+
+    /**
+     * @return the number of chunks of the board
+     */
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * @return the number of chunks allocated in the current game
+     */
+    public int getAllocatedChunks() {
+        return allocated;
+    }
+}
@@ -11,6 +11,11 @@ import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 
 public class Display {
+    /**
+     * The most cells shown across the window at full size; a larger board scrolls.
+     */
+    public static final int VIEW_CELLS = 50;
+
     /**
      * The window.
      */
@@ -19,6 +24,7 @@ public class Display {
      * The board canvas.
      */
     private BoardPanel boardPanel;
+    private JScrollPane boardScrollPane;
     /**
      * The score, face and timer canvas.
      */
@@ -36,7 +42,7 @@ public class Display {
         this.height = height;
 
         createDisplay();
-        createMenu(game::reset);
+        createMenu();
         createButton();
 
         frame.pack();
@@ -59,10 +65,8 @@ public class Display {
 
     /**
      * Create and initialize the menu bar.
-     *
-     * @param r callback for restart JMenuItem
      */
-    private void createMenu(Runnable r) {
+    private void createMenu() {
         JMenuBar menuBar = new JMenuBar();
         JMenu menu;
         JMenuItem menuItem;
@@ -70,27 +74,52 @@ public class Display {
         menu.setMnemonic(KeyEvent.VK_A);
         menuBar.add(menu);
         menuItem = new JMenuItem("Restart");
-        menuItem.addActionListener((e) -> r.run());
+        menuItem.addActionListener((e) -> game.reset());
         menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_R, ActionEvent.META_MASK));
         menuItem.getAccessibleContext().setAccessibleDescription("This restarts the game");
         menu.add(menuItem);
+        menuItem = new JMenuItem("Undo");
+        menuItem.addActionListener((e) -> game.undo());
+        menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, ActionEvent.META_MASK));
+        menu.add(menuItem);
+        menuItem = new JMenuItem("Redo");
+        menuItem.addActionListener((e) -> game.redo());
+        menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, ActionEvent.META_MASK | ActionEvent.SHIFT_MASK));
+        menu.add(menuItem);
+
+        menu = new JMenu("View");
+        menuBar.add(menu);
+        menuItem = new JMenuItem("Zoom In");
+        menuItem.addActionListener((e) -> boardPanel.zoom(-1, null));
+        menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, ActionEvent.META_MASK));
+        menu.add(menuItem);
+        menuItem = new JMenuItem("Zoom Out");
+        menuItem.addActionListener((e) -> boardPanel.zoom(1, null));
+        menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, ActionEvent.META_MASK));
+        menu.add(menuItem);
         frame.setJMenuBar(menuBar);
     }
 
     /**
-     * Create the GUI objects needed. Do not explicitly set the size of JFrame, let pack determine it.
+     * Create the GUI objects needed. Do not explicitly set the size of JFrame, let pack determine it. The board sits
+     * in a scroll pane of {@code width} by {@code height} pixels, the frame can be resized to see more of it.
      */
     private void createDisplay() {
         frame = new JFrame(title);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setResizable(false);
+        frame.setResizable(true);
         frame.setLocationRelativeTo(null);
         frame.setLayout(new BorderLayout());
 
         boardPanel = new BoardPanel(game.board);
-        boardPanel.setPreferredSize(new Dimension(width, height));
         boardPanel.setFocusable(false);
-        frame.add(boardPanel, BorderLayout.SOUTH);
+        boardScrollPane = new JScrollPane(boardPanel);
+        boardScrollPane.setBorder(BorderFactory.createEmptyBorder());
+        boardScrollPane.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
+        boardScrollPane.getVerticalScrollBar().setUnitIncrement(Assets.width);
+        boardScrollPane.getHorizontalScrollBar().setUnitIncrement(Assets.width);
+        boardScrollPane.setPreferredSize(new Dimension(width, height));
+        frame.add(boardScrollPane, BorderLayout.SOUTH);
 
         bannerCanvas = new Canvas();
         bannerCanvas.setPreferredSize(new Dimension(width, Assets.faceHeight));
@@ -7,20 +7,34 @@ import minesweeper.gfx.Assets;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferStrategy;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SplittableRandom;
 
 
 /**
- * manages all resources of the minesweeper.game (mouse, board, graphics)
+ * manages all resources of the minesweeper.game (mouse, board, graphics). The game logic lives in a headless
+ * {@link GameEngine}, this class is the Swing view on top of it.
  */
 
 public class Game {
     public String title;
-    public int N;
-    protected Board board;
-    private ScheduledExecutorService service;
+    public int rows, cols;
+    protected GameEngine engine;
+    protected PlayableBoard board;
+    /**
+     * How often the timer checks the time, in milliseconds; the digits are only drawn when the second changes.
+     */
+    private static final int TICK_MILLIS = 100;
+    /**
+     * The system property naming the file the moves are logged to, e.g. {@code -Dminesweeper.moveLog=games.log}.
+     */
+    public static final String MOVE_LOG_PROPERTY = "minesweeper.moveLog";
+
+    private Timer timer;
     private Display display;
     private int width, height;
     private boolean finished;
@@ -28,40 +42,92 @@ public class Game {
     private BufferStrategy sbbs;
     public int NMines;
     private long gameStartTime;
-    private int NMinesLeftNoFound;
-    private int timeElapsed;
+    /**
+     * The time the game lasted, saved when it ends: a game an undo takes back from its end goes on from there.
+     */
+    private long elapsedNanos;
+    /**
+     * The seconds elapsed, as shown by the timer; -1 before it is first drawn.
+     */
+    private int timeElapsed = -1;
     public int faceDrawingOriginX;
 
 
     public Game(String title, int N, int NMines) {
-        this.N = N;
-        width = Assets.width * N;
-        height = width;
+        this(title, N, N, NMines);
+    }
+
+    /**
+     * A game on a board of any shape; a board larger than {@link Board#MAX_N} is a {@link ChunkedBoard}, see
+     * {@link GameEngine#newBoard}.
+     *
+     * @param title  the title of the window
+     * @param rows   the number of rows
+     * @param cols   the number of columns
+     * @param NMines the number of mines
+     */
+    public Game(String title, int rows, int cols, int NMines) {
+        this.rows = rows;
+        this.cols = cols;
+        width = Assets.width * Math.min(cols, Display.VIEW_CELLS);
+        height = Assets.width * Math.min(rows, Display.VIEW_CELLS);
         this.NMines = NMines;
-        NMinesLeftNoFound = NMines;
         this.title = title;
-        this.faceDrawingOriginX = N * Assets.width / 2 - Assets.faceWidth / 2;
-        // set up assets first
+        this.faceDrawingOriginX = width / 2 - Assets.faceWidth / 2;
+        // set up assets first, the loading may have been started already
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long t = System.nanoTime();
         Assets.init();
-        board = new Board(N, NMines);
+        long assetsNanos = System.nanoTime() - t;
+        // the first click never hits a mine
+        engine = new GameEngine(rows, cols, NMines, new SplittableRandom().nextLong(), true);
+        board = engine.getBoard();
+        // undo and redo for the player
+        board.setHistoryEnabled(true);
+        logMoves(System.getProperty(MOVE_LOG_PROPERTY));
         mouseManager = new MouseManager(this);
         display = new Display(title, width, height, this); // reset reference past for set event listener
         display.getBoardPanel().addMouseListener(mouseManager);
         display.getBannerCanvas().createBufferStrategy(2);
         sbbs = display.getBannerCanvas().getBufferStrategy();
+        System.out.printf(Locale.ROOT, "Startup: JVM and class loading %d ms, %s, waited %.1f ms for assets, "
+                        + "window %.1f ms%n", uptime, Assets.timings(), assetsNanos / 1e6,
+                (System.nanoTime() - t - assetsNanos) / 1e6);
+    }
+
+    /**
+     * Log the moves of the games in a file, if a path is given, to replay them with {@link MoveReplayer}. The log is
+     * closed when the JVM exits.
+     *
+     * @param path the file of the log, null not to log
+     */
+    private void logMoves(String path) {
+        if (path == null)
+            return;
+        try {
+            MoveLog log = new MoveLog(Paths.get(path), board);
+            engine.setMoveLog(log);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public void reset() {
         System.out.println("reset");
         finished = false;
         // reset board
-        board.reset();
+        engine.reset();
         // reset title
         display.getFrame().setTitle(title);
-        // reset timer and counter
+        // reset timer and counter; the board panel repaints itself
         start();
-        // paint new board to panel
-        refreshBoardPanel();
     }
 
 
@@ -81,29 +147,58 @@ public class Game {
         if (finished)
             return;
 
-        int row = y / Assets.width;
-        int col = x / Assets.width;
+        int row = display.getBoardPanel().rowAt(y);
+        int col = display.getBoardPanel().colAt(x);
+        if (row < 0 || col < 0)
+            return;
         Graphics gsb = sbbs.getDrawGraphics();
 
         if (isLeft)
-            board.uncoverCell(row, col);
+            engine.uncover(row, col);
         else {
-            int response = board.toggleFlag(row, col);
-            NMinesLeftNoFound += response;
-
-            Assets.drawMinesCnt(NMinesLeftNoFound, gsb);
+            engine.toggleFlag(row, col);
+            Assets.drawMinesCnt(engine.getMinesLeft(), gsb);
         }
         gsb.dispose();
         sbbs.show();
-        refreshBoardPanel();
         checkGameStateAndEndIfPossible();
     }
 
+    /**
+     * Take back the last move. A game it ended goes on, and so does its timer.
+     */
+    public void undo() {
+        if (engine.undo())
+            afterHistoryMove();
+    }
+
+    /**
+     * Apply again the last move taken back.
+     */
+    public void redo() {
+        if (engine.redo() != null)
+            afterHistoryMove();
+    }
+
+    private void afterHistoryMove() {
+        Graphics gsb = sbbs.getDrawGraphics();
+        Assets.drawMinesCnt(engine.getMinesLeft(), gsb);
+        gsb.dispose();
+        sbbs.show();
+        if (engine.getGameState() == GameState.ONGOING) {
+            finished = false;
+            display.drawSmileFace();
+            resumeScheduleTimer();
+        } else if (!finished) {
+            checkGameStateAndEndIfPossible();
+        }
+    }
+
     /**
      * If the game is possible to end, call this to finalize.
      */
     private void checkGameStateAndEndIfPossible() {
-        GameState result = board.getGameState();
+        GameState result = engine.getGameState();
         if (result != GameState.ONGOING) {
             //  when minesweeper.game ends
             SetFinishedFlag(result);
@@ -140,10 +235,6 @@ public class Game {
         }
     }
 
-    protected void refreshBoardPanel() {
-        display.getBoardPanel().repaint();
-    }
-
     /**
      * Callback method when an LR click is incurred.
      *
@@ -155,19 +246,17 @@ public class Game {
         if (finished)
             return true;
 
-        int row = y / Assets.width;
-        int col = x / Assets.width;
-        canAutoExpand = board.inferOnCell(row, col);
+        int row = display.getBoardPanel().rowAt(y);
+        int col = display.getBoardPanel().colAt(x);
+        if (row < 0 || col < 0)
+            return true;
+        canAutoExpand = engine.chord(row, col).isApplied();
 
         if (!canAutoExpand) {
             // begin blink
             board.changeTempToUNC0(row, col);
         }
 
-        refreshBoardPanel();
-
-        /*check must be after bs.show to update the board
-         * so user can see the final board upon lose*/
         checkGameStateAndEndIfPossible();
 
         return canAutoExpand;
@@ -180,10 +269,10 @@ public class Game {
      * @param y vertical (to row)
      */
     public void restoreTempUNC0(int x, int y) {
-        int row = y / Assets.width;
-        int col = x / Assets.width;
-        board.restoreTempUNC0(row, col);
-        refreshBoardPanel();
+        int row = display.getBoardPanel().rowAt(y);
+        int col = display.getBoardPanel().colAt(x);
+        if (row >= 0 && col >= 0)
+            board.restoreTempUNC0(row, col);
     }
 
     /**
@@ -191,8 +280,6 @@ public class Game {
      */
     public void start() {
         display.drawSmileFace();
-        gameStartTime = System.currentTimeMillis();
-        NMinesLeftNoFound = NMines;
         setupScheduleTimer();
         Graphics g = sbbs.getDrawGraphics();
         Assets.drawMinesCnt(NMines, g);
@@ -201,23 +288,42 @@ public class Game {
     }
 
     /**
-     * Set up timer. The timer will run in a scheduled single thread executor.
+     * Set up timer, cancelling the one of the previous game. It is a Swing {@link Timer}: the timers of every window
+     * share the one thread of the Swing timer queue and tick on the event dispatch thread.
      */
     private void setupScheduleTimer() {
-        // set up time
-        service = Executors.newSingleThreadScheduledExecutor();
-        service.scheduleAtFixedRate(() -> {
-            SwingUtilities.invokeLater(() -> {
-                Graphics2D g2 = (Graphics2D) sbbs.getDrawGraphics();
-                long now = System.currentTimeMillis();
-                timeElapsed = Math.round((now - gameStartTime) / 1000);
-                Assets.drawTime(timeElapsed, g2, N);
-                g2.dispose();
-                sbbs.show();
-            });
-        }, 0, 1, TimeUnit.SECONDS);
+        if (timer == null) {
+            timer = new Timer(TICK_MILLIS, e -> tick());
+            timer.setInitialDelay(0);
+        }
+        gameStartTime = System.nanoTime();
+        timeElapsed = -1;
+        timer.restart();
     }
 
+    /**
+     * Start again the timer stopped at the end of the game, from the time the game had lasted.
+     */
+    private void resumeScheduleTimer() {
+        if (timer.isRunning())
+            return;
+        gameStartTime = System.nanoTime() - elapsedNanos;
+        timer.start();
+    }
+
+    /**
+     * Draw the timer if the second shown changed.
+     */
+    private void tick() {
+        int elapsed = (int) ((System.nanoTime() - gameStartTime) / 1_000_000_000L);
+        if (elapsed == timeElapsed)
+            return;
+        timeElapsed = elapsed;
+        Graphics g = sbbs.getDrawGraphics();
+        Assets.drawTime(timeElapsed, g, width / Assets.width);
+        g.dispose();
+        sbbs.show();
+    }
 
 
     public void setFace(String face) {
@@ -230,7 +336,8 @@ public class Game {
      */
     private void killScheduleTimer(GameState result) {
         if (result != GameState.ONGOING) {
-            service.shutdown();
+            timer.stop();
+            elapsedNanos = System.nanoTime() - gameStartTime;
         }
     }
 
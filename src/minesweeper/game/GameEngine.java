@@ -0,0 +1,273 @@
+package minesweeper.game;
+
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Headless minesweeper engine: the board, the state of the game and the application of moves.
+ * <p>
+ * The engine does not depend on AWT or Swing, so it can be driven without a display, e.g. by robots playing
+ * batches of games on a build agent. The Swing {@link Game} is a view on top of an engine: it turns mouse events into
+ * moves and repaints after each of them.
+ * <p>
+ * The board is a {@link Board} up to {@link Board#MAX_N}, a {@link ChunkedBoard} beyond it or if it is not square;
+ * the engine plays either through {@link PlayableBoard}.
+ */
+public class GameEngine {
+    /**
+     * The board the moves are applied on.
+     */
+    private final PlayableBoard board;
+    /**
+     * The number of mines minus the number of flags placed, as shown by the mine counter.
+     */
+    private int NMinesLeftNoFound;
+    /**
+     * The number of moves that changed the board since the last reset.
+     */
+    private int moves;
+    /**
+     * The log of the moves, null if they are not logged.
+     */
+    private MoveLog log;
+
+    public GameEngine(int N, int NMines) {
+        this(N, N, NMines, new SplittableRandom().nextLong(), false);
+    }
+
+    /**
+     * Create an engine on a reproducible board, see {@link Board#Board(int, int, long, boolean)}.
+     *
+     * @param N              the dimension of the board
+     * @param NMines         the number of mines
+     * @param seed           the seed of the first game
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     */
+    public GameEngine(int N, int NMines, long seed, boolean firstClickSafe) {
+        this(N, N, NMines, seed, firstClickSafe);
+    }
+
+    /**
+     * Create an engine on a reproducible board of any shape, see {@link #newBoard}.
+     *
+     * @param rows           the number of rows
+     * @param cols           the number of columns
+     * @param NMines         the number of mines
+     * @param seed           the seed of the first game
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     */
+    public GameEngine(int rows, int cols, int NMines, long seed, boolean firstClickSafe) {
+        this(newBoard(rows, cols, NMines, seed, firstClickSafe));
+    }
+
+    /**
+     * Create an engine on a board, possibly in the middle of a game, e.g. one restored by {@link BoardSnapshot}.
+     *
+     * @param board the board
+     */
+    public GameEngine(PlayableBoard board) {
+        this.board = board;
+        NMinesLeftNoFound = board.getNMines() - board.getNFlagged();
+    }
+
+    /**
+     * Create a reproducible board: a {@link Board} if it is square and at most {@link Board#MAX_N} wide, whose bit
+     * planes cover every cell, else a {@link ChunkedBoard}, which only allocates the parts that are played.
+     *
+     * @param rows           the number of rows
+     * @param cols           the number of columns
+     * @param NMines         the number of mines
+     * @param seed           the seed of the first game
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     * @return the board
+     * @throws IllegalArgumentException if a chunked board has no cell, too many cells or too many mines
+     */
+    public static PlayableBoard newBoard(int rows, int cols, int NMines, long seed, boolean firstClickSafe) {
+        if (rows == cols && rows <= Board.MAX_N)
+            return new Board(rows, NMines, seed, firstClickSafe);
+        return new ChunkedBoard(rows, cols, NMines, seed, firstClickSafe);
+    }
+
+    /**
+     * Start a new game on a board of the same size.
+     */
+    public void reset() {
+        board.reset();
+        NMinesLeftNoFound = board.getNMines();
+        moves = 0;
+        if (log != null)
+            log.newGame(board.getSeed());
+    }
+
+    /**
+     * Start a new game on a board of the same size, with the given seed.
+     *
+     * @param seed the seed of the game
+     */
+    public void reset(long seed) {
+        board.reset(seed);
+        NMinesLeftNoFound = board.getNMines();
+        moves = 0;
+        if (log != null)
+            log.newGame(seed);
+    }
+
+    /**
+     * Log the moves from now on, the games started by {@link #reset} included.
+     *
+     * @param log the log, created on the board of this engine before the first move of the game; null to stop
+     *            logging
+     */
+    public void setMoveLog(MoveLog log) {
+        this.log = log;
+    }
+
+    public MoveLog getMoveLog() {
+        return log;
+    }
+
+    /**
+     * Count a move that changed the board and log it.
+     */
+    private void applied(byte op, int row, int col) {
+        moves++;
+        if (log != null) {
+            log.move(op, row, col);
+            if (isFinished())
+                log.flush();
+        }
+    }
+
+    /**
+     * Uncover a cell. The game may end by this move.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over or the cell cannot be uncovered
+     */
+    public MoveResult uncover(int row, int col) {
+        if (isFinished())
+            return MoveResult.ignored(getGameState());
+        MoveResult result = board.uncoverCell(row, col);
+        if (result.isApplied())
+            applied(MoveLog.UNCOVER, row, col);
+        return result;
+    }
+
+    /**
+     * Flag or un-flag a cell.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the change of mines remaining to be discovered. -1 if flag a cell; 1 if unflag a cell; 0 if not viable.
+     */
+    public int toggleFlag(int row, int col) {
+        if (isFinished())
+            return 0;
+        int delta = board.toggleFlag(row, col);
+        if (delta != 0) {
+            NMinesLeftNoFound += delta;
+            applied(MoveLog.FLAG, row, col);
+        }
+        return delta;
+    }
+
+    /**
+     * Uncover all covered neighbours of an uncovered cell whose mines are all flagged (an LR click). The game may
+     * end by this move.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied, nor counted, if the game is over, the cell lacks conditions to
+     * expand or every neighbour is uncovered or flagged already
+     */
+    public MoveResult chord(int row, int col) {
+        if (isFinished())
+            return MoveResult.ignored(getGameState());
+        MoveResult result = board.inferOnCell(row, col);
+        if (result.isApplied())
+            applied(MoveLog.CHORD, row, col);
+        return result;
+    }
+
+    /**
+     * Take back the last move, see {@link PlayableBoard#undo}. A game lost or won by that move goes on.
+     *
+     * @return false if there is no move to undo
+     */
+    public boolean undo() {
+        if (!board.undo())
+            return false;
+        NMinesLeftNoFound = board.getNMines() - board.getNFlagged();
+        moves--;
+        if (log != null)
+            log.event(MoveLog.UNDO);
+        return true;
+    }
+
+    /**
+     * Apply again the last move undone, see {@link PlayableBoard#redo}.
+     *
+     * @return the result of the move, null if there is no move to redo
+     */
+    public MoveResult redo() {
+        MoveResult result = board.redo();
+        if (result == null)
+            return null;
+        NMinesLeftNoFound = board.getNMines() - board.getNFlagged();
+        moves++;
+        if (log != null) {
+            log.event(MoveLog.REDO);
+            if (isFinished())
+                log.flush();
+        }
+        return result;
+    }
+
+    /**
+     * Get the public state of a cell.
+     *
+     * @param row row index
+     * @param col column index
+     * @return the cellState at (row, col)
+     */
+    public CellState getCellState(int row, int col) {
+        return board.getCellState(row, col);
+    }
+
+    public GameState getGameState() {
+        return board.getGameState();
+    }
+
+    /**
+     * Indicate the game is finished or not
+     * @return true if the game is won or lost, false otherwise
+     */
+    public boolean isFinished() {
+        return board.getGameState() != GameState.ONGOING;
+    }
+
+    /**
+     * Return the number of mines minus the number of flags placed.
+     *
+     * @return the value of the mine counter
+     */
+    public int getMinesLeft() {
+        return NMinesLeftNoFound;
+    }
+
+    /**
+     * Return the number of moves that changed the board since the last reset.
+     *
+     * @return the number of moves made
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    public PlayableBoard getBoard() {
+        return board;
+    }
+}
@@ -0,0 +1,335 @@
+package minesweeper.game;
+
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+import java.util.SplittableRandom;
+
+/**
+ * An unbounded board: cells are addressed by any (row, col) of ints, negative ones included, and the mines are
+ * spread at a fixed density.
+ * <p>
+ * The chunks come from a {@link ChunkGenerator}, a pure function of the seed and of the chunk coordinates, and live
+ * in a {@link ChunkCache} within a memory budget; a chunk far from the play is evicted and generated again when it
+ * is needed, with the cells the player uncovered and flagged on it. With a first click safe, its safe zone is
+ * cleared from the chunks it falls in each time they are generated.
+ * <p>
+ * The reveal logic is the one of {@link Board}, shared in {@link AbstractBoard}: a fired mine loses the game, a cell
+ * with no mine around uncovers its neighbours. The game cannot be won, but a finite {@link #window} of the board can,
+ * and a {@link GameEngine} plays it. The density must be at least {@link #MIN_DENSITY}: below it, the regions with no
+ * mine around may be unbounded, and so would the cascade of a click.
+ */
+public class InfiniteBoard extends AbstractBoard implements AutoCloseable {
+    /**
+     * The lowest density: a cell has no mine around with probability {@code (1 - d)^9}, about 0.23 at this density,
+     * well below the percolation threshold of the cells of a square lattice with their 8 neighbours (about 0.41).
+     */
+    public static final double MIN_DENSITY = 0.15;
+    /**
+     * The name of the mine placement of the board, reported by its windows.
+     */
+    public static final String GENERATOR = "InfiniteSplittableRandom";
+
+    private static final int SHIFT = Chunk.SHIFT;
+
+    private final double density;
+    private final boolean firstClickSafe;
+    private final ChunkCache cache;
+    /**
+     * The seeds of the successive games.
+     */
+    private final SplittableRandom seeds;
+    private ChunkGenerator generator;
+
+    private boolean started;
+    private int safeRow, safeCol;
+
+    private long uncovered;
+    private GameState gameState = GameState.ONGOING;
+
+    /**
+     * @param seed           the seed of the first game, the seeds of the next games are derived from it
+     * @param density        the probability of a cell to be a mine, from {@link #MIN_DENSITY} to 1
+     * @param budgetBytes    the memory the chunks may take, see {@link ChunkCache}
+     * @param firstClickSafe no mine in the first uncovered cell nor in its eight neighbours
+     * @throws IllegalArgumentException if the density is out of range
+     */
+    public InfiniteBoard(long seed, double density, long budgetBytes, boolean firstClickSafe) {
+        super(1 << 10);
+        if (!(density >= MIN_DENSITY && density < 1))
+            throw new IllegalArgumentException("density must be in [" + MIN_DENSITY + ", 1): " + density);
+        this.density = density;
+        this.generator = new ChunkGenerator(seed, density);
+        this.firstClickSafe = firstClickSafe;
+        this.cache = new ChunkCache(budgetBytes, this::mines);
+        this.seeds = new SplittableRandom(seed);
+    }
+
+    /**
+     * The mines of a chunk: generated, then the safe zone of the first click cleared if it falls in the chunk.
+     */
+    private long[] mines(int chunkRow, int chunkCol) {
+        long[] plane = generator.mines(chunkRow, chunkCol);
+        if (started && firstClickSafe)
+            for (int r = safeRow - 1; r <= safeRow + 1; r++)
+                for (int c = safeCol - 1; c <= safeCol + 1; c++)
+                    if (r >> SHIFT == chunkRow && c >> SHIFT == chunkCol)
+                        plane[r & (Chunk.SIZE - 1)] &= ~(1L << c);
+        return plane;
+    }
+
+    /**
+     * Start a new game, with the next seed derived from the seed of the board.
+     */
+    public void reset() {
+        reset(seeds.nextLong());
+    }
+
+    /**
+     * Start a new game with the given seed: every chunk and delta is dropped.
+     *
+     * @param seed the seed of the game
+     */
+    public void reset(long seed) {
+        generator = new ChunkGenerator(seed, density);
+        cache.clear();
+        started = false;
+        uncovered = 0;
+        clearBlinking();
+        gameState = GameState.ONGOING;
+        fireBoardChanged();
+    }
+
+    /**
+     * Delete the file of the evicted chunks. The board cannot be played afterwards.
+     */
+    @Override
+    public void close() {
+        cache.close();
+    }
+
+    /**
+     * Create a finite board over a rectangle of this one, for a {@link GameEngine}.
+     *
+     * @param row0 the row of the top left cell
+     * @param col0 the column of the top left cell
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @return the window
+     * @throws IllegalArgumentException if the window is empty, too large, or out of the int coordinates
+     */
+    public InfiniteWindow window(int row0, int col0, int rows, int cols) {
+        return new InfiniteWindow(this, row0, col0, rows, cols);
+    }
+
+    /**
+     * The chunk of a cell. It must not be kept across another lookup, which may evict it.
+     */
+    Chunk chunk(int row, int col) {
+        return cache.get(row >> SHIFT, col >> SHIFT);
+    }
+
+    /**
+     * Fix the safe zone around the first click: the chunks resident so far were generated without it.
+     */
+    void start(int row, int col) {
+        if (started)
+            return;
+        started = true;
+        safeRow = row;
+        safeCol = col;
+        if (firstClickSafe)
+            for (int r = row - 1; r <= row + 1; r++)
+                for (int c = col - 1; c <= col + 1; c++)
+                    chunk(r, c).mine[r & (Chunk.SIZE - 1)] &= ~(1L << c);
+    }
+
+    /**
+     * @return true once the first cell of the game is uncovered, and its safe zone fixed
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Mark a covered cell that is not flagged uncovered, without looking at its mines.
+     *
+     * @return false if the cell was uncovered or flagged already
+     */
+    boolean uncover(int row, int col) {
+        Chunk chunk = chunk(row, col);
+        long bit = 1L << col;
+        int r = row & (Chunk.SIZE - 1);
+        if (((chunk.revealed[r] | chunk.flagged[r]) & bit) != 0)
+            return false;
+        chunk.revealed[r] |= bit;
+        uncovered++;
+        fireCellChanged(row, col);
+        return true;
+    }
+
+    /**
+     * Flip the flag of a cell.
+     */
+    void flag(int row, int col) {
+        Chunk.flip(chunk(row, col).flagged, row, col);
+        fireCellChanged(row, col);
+    }
+
+    /**
+     * End the game on a fired mine.
+     */
+    void lose() {
+        gameState = GameState.LOST;
+        fireBoardChanged();
+    }
+
+    @Override
+    boolean contains(int row, int col) {
+        return true;
+    }
+
+    @Override
+    boolean isRevealed(int row, int col) {
+        return Chunk.test(chunk(row, col).revealed, row, col);
+    }
+
+    @Override
+    boolean isFlagged(int row, int col) {
+        return Chunk.test(chunk(row, col).flagged, row, col);
+    }
+
+    @Override
+    boolean isMine(int row, int col) {
+        return Chunk.test(chunk(row, col).mine, row, col);
+    }
+
+    @Override
+    int getMineCnt(int row, int col) {
+        int count = 0;
+        for (int i = 0; i < di.length; i++)
+            if (isMine(row + di[i], col + dj[i]))
+                count++;
+        return count;
+    }
+
+    @Override
+    boolean reveal(int row, int col) {
+        return uncover(row, col) && getMineCnt(row, col) == 0;
+    }
+
+    @Override
+    boolean open(int row, int col) {
+        if (isMine(row, col)) {
+            uncover(row, col);
+            return true;
+        }
+        cascade(row, col);
+        return false;
+    }
+
+    /**
+     * Uncover a cell. If it is a mine the game is lost, else the region around it opens if it has no mine around.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over or the cell is not covered
+     */
+    public MoveResult uncoverCell(int row, int col) {
+        if (gameState != GameState.ONGOING || getCellState(row, col) != CellState.COVERED)
+            return MoveResult.ignored(gameState);
+        start(row, col);
+        long before = uncovered;
+        if (open(row, col))
+            lose();
+        return MoveResult.applied((int) Math.min(Integer.MAX_VALUE, uncovered - before), gameState);
+    }
+
+    /**
+     * Uncover every covered neighbour of an uncovered cell whose mines are all flagged (an LR click).
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over, the cell lacks conditions to expand or every
+     * neighbour is uncovered or flagged already
+     */
+    public MoveResult inferOnCell(int row, int col) {
+        if (gameState != GameState.ONGOING || !canChord(row, col))
+            return MoveResult.ignored(gameState);
+        long before = uncovered;
+        boolean hitMine = chord(row, col);
+        if (uncovered == before) // nothing left to uncover around
+            return MoveResult.ignored(gameState);
+        if (hitMine)
+            lose();
+        return MoveResult.applied((int) Math.min(Integer.MAX_VALUE, uncovered - before), gameState);
+    }
+
+    /**
+     * Flag or un-flag a covered cell.
+     *
+     * @param row row index
+     * @param col column index
+     * @return -1 if the cell was flagged, 1 if it was unflagged, 0 if the move is not viable
+     */
+    public int toggleFlag(int row, int col) {
+        if (gameState != GameState.ONGOING)
+            return 0;
+        CellState state = getCellState(row, col);
+        if (state != CellState.COVERED && state != CellState.FLAGGED)
+            return 0;
+        flag(row, col);
+        return state == CellState.COVERED ? -1 : 1;
+    }
+
+    /**
+     * Get the public state of a cell. Reading a cell of a chunk never changed does not generate it while the game
+     * goes on.
+     *
+     * @param row row index
+     * @param col column index
+     * @return the cellState at (row, col)
+     */
+    public CellState getCellState(int row, int col) {
+        if (gameState == GameState.ONGOING && !cache.isKnown(row >> SHIFT, col >> SHIFT))
+            return isBlinking(row, col) ? CellState.TEMP_UNC0 : CellState.COVERED;
+        Chunk chunk = chunk(row, col);
+        boolean isMine = Chunk.test(chunk.mine, row, col);
+        if (Chunk.test(chunk.revealed, row, col))
+            return isMine ? CellState.FIRED_MINE : uncoveredStates[getMineCnt(row, col)];
+        if (Chunk.test(chunk.flagged, row, col))
+            return (gameState != GameState.ONGOING && !isMine) ? CellState.WRONG_FLAG : CellState.FLAGGED;
+        if (isMine && gameState != GameState.ONGOING)
+            return CellState.MINE;
+        return isBlinking(row, col) ? CellState.TEMP_UNC0 : CellState.COVERED;
+    }
+
+    /**
+     * @return the number of cells uncovered in the current game
+     */
+    public long getUncovered() {
+        return uncovered;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    public boolean isFirstClickSafe() {
+        return firstClickSafe;
+    }
+
+    /**
+     * @return the generator of the mines of the current game
+     */
+    public ChunkGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * @return the chunk cache, for its metrics
+     */
+    public ChunkCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,344 @@
+package minesweeper.game;
+
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+/**
+ * A finite rectangle of an {@link InfiniteBoard}, played as a board of its own by a {@link GameEngine} and its
+ * robot: a long-running robot clears one window after the other, over a board that keeps its memory budget.
+ * <p>
+ * The window is a game cut out of the mines of the infinite board: its numbers count the mines inside the window
+ * only, so that a solver sees a finite board and its deductions hold, and its cascade stops at its edges. The cells
+ * the window uncovers and flags are those of the infinite board, a window overlapping a cleared one starts where the
+ * other stopped. The window is won once every cell of it that is not a mine is uncovered; a fired mine loses the
+ * infinite board and every window over it.
+ * <p>
+ * Cells are addressed relative to the top left cell of the window. The window has no history of moves, and a
+ * {@link MoveReplayer} does not replay it.
+ */
+public class InfiniteWindow extends AbstractBoard implements PlayableBoard {
+    private final InfiniteBoard board;
+    private final int row0, col0;
+    private final int rows, cols;
+
+    private int NMines;
+    private int NCovered;
+    private int NFlagged;
+    private GameState gameState;
+
+    /**
+     * @param board the infinite board
+     * @param row0  the row of the top left cell on the infinite board
+     * @param col0  the column of the top left cell on the infinite board
+     * @param rows  the number of rows
+     * @param cols  the number of columns
+     * @throws IllegalArgumentException if the window is empty, too large, or out of the int coordinates
+     */
+    InfiniteWindow(InfiniteBoard board, int row0, int col0, int rows, int cols) {
+        super(1 << 10);
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE
+                || (long) row0 + rows - 1 > Integer.MAX_VALUE || (long) col0 + cols - 1 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("invalid window: " + rows + "x" + cols + " at " + row0 + ", " + col0);
+        this.board = board;
+        this.row0 = row0;
+        this.col0 = col0;
+        this.rows = rows;
+        this.cols = cols;
+        count();
+    }
+
+    /**
+     * Count the mines, the covered and the flagged cells of the window, from the chunks of the infinite board.
+     */
+    private void count() {
+        NMines = NCovered = NFlagged = 0;
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++) {
+                Chunk chunk = board.chunk(row0 + r, col0 + c);
+                if (Chunk.test(chunk.mine, row0 + r, col0 + c))
+                    NMines++;
+                if (!Chunk.test(chunk.revealed, row0 + r, col0 + c))
+                    NCovered++;
+                if (Chunk.test(chunk.flagged, row0 + r, col0 + c))
+                    NFlagged++;
+            }
+        gameState = board.getGameState() == GameState.LOST ? GameState.LOST
+                : NCovered == NMines ? GameState.WON : GameState.ONGOING;
+    }
+
+    /**
+     * Start a new game on the infinite board, with the next seed derived from its seed.
+     */
+    public void reset() {
+        board.reset();
+        restart();
+    }
+
+    /**
+     * Start a new game on the infinite board with the given seed.
+     *
+     * @param seed the seed of the game
+     */
+    public void reset(long seed) {
+        board.reset(seed);
+        restart();
+    }
+
+    private void restart() {
+        clearBlinking();
+        count();
+        fireBoardChanged();
+    }
+
+    @Override
+    boolean contains(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    @Override
+    boolean isRevealed(int row, int col) {
+        return board.isRevealed(row0 + row, col0 + col);
+    }
+
+    @Override
+    boolean isFlagged(int row, int col) {
+        return board.isFlagged(row0 + row, col0 + col);
+    }
+
+    @Override
+    boolean isMine(int row, int col) {
+        return board.isMine(row0 + row, col0 + col);
+    }
+
+    /**
+     * The number of mines around a cell, inside the window.
+     */
+    @Override
+    int getMineCnt(int row, int col) {
+        int count = 0;
+        for (int i = 0; i < di.length; i++) {
+            int r = row + di[i], c = col + dj[i];
+            if (contains(r, c) && isMine(r, c))
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    boolean reveal(int row, int col) {
+        if (!board.uncover(row0 + row, col0 + col))
+            return false;
+        NCovered--;
+        fireCellChanged(row, col);
+        return getMineCnt(row, col) == 0;
+    }
+
+    @Override
+    boolean open(int row, int col) {
+        if (isMine(row, col)) { // hit a mine
+            board.uncover(row0 + row, col0 + col);
+            NCovered--;
+            fireCellChanged(row, col);
+            return true;
+        }
+        cascade(row, col);
+        return false;
+    }
+
+    /**
+     * Decide the state of the window once a move is done, a fired mine loses the infinite board too.
+     */
+    private MoveResult endMove(boolean hitMine, int NCoveredBefore) {
+        if (hitMine) {
+            gameState = GameState.LOST;
+            board.lose();
+        } else if (NCovered == NMines) {
+            gameState = GameState.WON;
+        }
+        if (gameState != GameState.ONGOING)
+            fireBoardChanged();
+        return MoveResult.applied(NCoveredBefore - NCovered, gameState);
+    }
+
+    /**
+     * Uncover a cell. If it is a mine the game is lost, else the region around it opens, inside the window, if it
+     * has no mine around in the window.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over or the cell is not covered
+     */
+    public MoveResult uncoverCell(int row, int col) {
+        if (getGameState() != GameState.ONGOING || getCellState(row, col) != CellState.COVERED)
+            return MoveResult.ignored(getGameState());
+        if (!board.isStarted()) {
+            board.start(row0 + row, col0 + col);
+            count(); // the safe zone may have removed mines from the window
+        }
+        int before = NCovered;
+        return endMove(open(row, col), before);
+    }
+
+    /**
+     * Uncover every covered neighbour of an uncovered cell whose mines are all flagged (an LR click).
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over, the cell lacks conditions to expand or every
+     * neighbour is uncovered or flagged already
+     */
+    public MoveResult inferOnCell(int row, int col) {
+        if (getGameState() != GameState.ONGOING || !canChord(row, col))
+            return MoveResult.ignored(getGameState());
+        int before = NCovered;
+        boolean hitMine = chord(row, col);
+        if (NCovered == before) // nothing left to uncover around
+            return MoveResult.ignored(getGameState());
+        return endMove(hitMine, before);
+    }
+
+    /**
+     * Flag or un-flag a covered cell.
+     *
+     * @param row row index
+     * @param col column index
+     * @return -1 if the cell was flagged, 1 if it was unflagged, 0 if the move is not viable or the game is over
+     */
+    public int toggleFlag(int row, int col) {
+        if (getGameState() != GameState.ONGOING)
+            return 0;
+        CellState state = getCellState(row, col);
+        if (state != CellState.COVERED && state != CellState.FLAGGED)
+            return 0;
+        board.flag(row0 + row, col0 + col);
+        NFlagged += state == CellState.COVERED ? 1 : -1;
+        fireCellChanged(row, col);
+        return state == CellState.COVERED ? -1 : 1;
+    }
+
+    /**
+     * Get the public state of a cell, its number counting the mines inside the window.
+     *
+     * @param row row index
+     * @param col column index
+     * @return the cellState at (row, col)
+     */
+    public CellState getCellState(int row, int col) {
+        GameState state = getGameState();
+        Chunk chunk = board.chunk(row0 + row, col0 + col);
+        boolean revealed = Chunk.test(chunk.revealed, row0 + row, col0 + col);
+        boolean flagged = Chunk.test(chunk.flagged, row0 + row, col0 + col);
+        boolean isMine = Chunk.test(chunk.mine, row0 + row, col0 + col);
+        if (revealed)
+            return isMine ? CellState.FIRED_MINE : uncoveredStates[getMineCnt(row, col)];
+        if (state == GameState.ONGOING) {
+            if (flagged)
+                return CellState.FLAGGED;
+            return isBlinking(row, col) ? CellState.TEMP_UNC0 : CellState.COVERED;
+        }
+        if (flagged)
+            return isMine ? CellState.FLAGGED : CellState.WRONG_FLAG;
+        if (isMine)
+            return state == GameState.WON ? CellState.FLAGGED : CellState.MINE;
+        return CellState.COVERED;
+    }
+
+    /**
+     * Find the next frontier cell: an uncovered cell with at least one adjacent cell of the window that is neither
+     * uncovered nor flagged.
+     *
+     * @param from the cell index ({@code row * getCols() + col}) to start searching from, inclusive
+     * @return the index of the next frontier cell, or -1 if there is none
+     */
+    public int nextFrontierCell(int from) {
+        return nextFrontierCell(from, rows * cols);
+    }
+
+    /**
+     * Find the next frontier cell before a bound, see {@link #nextFrontierCell(int)}.
+     *
+     * @param from the cell index to start searching from, inclusive
+     * @param to   the cell index to stop searching at, exclusive
+     * @return the index of the next frontier cell, or -1 if there is none before {@code to}
+     */
+    public int nextFrontierCell(int from, int to) {
+        to = Math.min(to, rows * cols);
+        for (int key = Math.max(from, 0); key < to; key++) {
+            int row = key / cols, col = key % cols;
+            if (!isRevealed(row, col))
+                continue;
+            for (int i = 0; i < di.length; i++) {
+                int r = row + di[i], c = col + dj[i];
+                if (contains(r, c) && !isRevealed(r, c) && !isFlagged(r, c))
+                    return key;
+            }
+        }
+        return -1;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return the row of the top left cell on the infinite board
+     */
+    public int getRow0() {
+        return row0;
+    }
+
+    /**
+     * @return the column of the top left cell on the infinite board
+     */
+    public int getCol0() {
+        return col0;
+    }
+
+    public int getNMines() {
+        return NMines;
+    }
+
+    /**
+     * @return the number of cells still covered, flagged cells included
+     */
+    public int getNCovered() {
+        return NCovered;
+    }
+
+    public int getNFlagged() {
+        return NFlagged;
+    }
+
+    /**
+     * @return the state of the window, lost once the infinite board is
+     */
+    public GameState getGameState() {
+        return board.getGameState() == GameState.LOST ? GameState.LOST : gameState;
+    }
+
+    public long getSeed() {
+        return board.getGenerator().getSeed();
+    }
+
+    public boolean isFirstClickSafe() {
+        return board.isFirstClickSafe();
+    }
+
+    /**
+     * @return {@link InfiniteBoard#GENERATOR}
+     */
+    public String getGeneratorName() {
+        return InfiniteBoard.GENERATOR;
+    }
+
+    /**
+     * @return the infinite board under the window
+     */
+    public InfiniteBoard getBoard() {
+        return board;
+    }
+}
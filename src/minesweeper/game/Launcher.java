@@ -1,43 +1,59 @@
 package minesweeper.game;
 
+import minesweeper.gfx.Assets;
 
 import javax.swing.*;
 
 public class Launcher {
 
     public static void main(String[] args) throws Exception {
+        // decode the static files while the player chooses
+        Assets.load();
         // mac menubar
         System.setProperty("apple.laf.useScreenMenuBar", "true");
         UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 
         // default parameters
-        int N = 10, NMines = 10;
+        int rows = 10, cols = 10, NMines = 10;
 
-        String[] options = {"Easy", "Advanced", "Professional"};
+        String[] options = {"Easy", "Advanced", "Professional", "Custom"};
         String diff = (String) JOptionPane.showInputDialog(null, "Choose difficulty", "Difficulty", JOptionPane.QUESTION_MESSAGE,
         null, options, options[0]);
 
         switch (diff) {
             case "Easy":
-                N = 10;
+                rows = cols = 10;
                 NMines = 10;
                 break;
             case "Advanced":
-                N = 20;
+                rows = cols = 20;
                 NMines = 50;
                 break;
             case "Professional":
-                N = 30;
+                rows = cols = 30;
                 NMines = 100;
                 break;
+            case "Custom":
+                // any shape, beyond Board.MAX_N the board is chunked
+                String custom = JOptionPane.showInputDialog(null, "Rows x columns and mines, e.g. 20000x20000 40000000",
+                        "Custom", JOptionPane.QUESTION_MESSAGE);
+                String[] values = custom == null ? new String[0] : custom.trim().split("[x\\s]+");
+                try {
+                    rows = Integer.parseInt(values[0]);
+                    cols = Integer.parseInt(values[1]);
+                    NMines = Integer.parseInt(values[2]);
+                } catch (RuntimeException e) {
+                    System.exit(-1);
+                }
+                break;
         }
 
-//         you can use a greater N if you have a huge display
-        if (N < 10 || N > 1000 || NMines < 1 || NMines > N * N) {
+        if (rows < 10 || cols < 10 || (long) rows * cols > ChunkedBoard.MAX_CELLS || NMines < 1
+                || NMines >= (long) rows * cols - 9) {
             System.exit(-1);
         }
 
-        Game game = new Game("Minesweeper", N, NMines);
+        Game game = new Game("Minesweeper", rows, cols, NMines);
         game.start();
     }
 
@@ -0,0 +1,184 @@
+package minesweeper.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary log of the moves of the games played on a board, from which {@link MoveReplayer} rebuilds any of them.
+ * <p>
+ * A game is its seed and its moves: the mines are placed from the seed and the first click, so the log holds no
+ * mine. The file starts with a header, then a record per event:
+ * <pre>
+ *   header  "MSLG" | version (byte) | rows (varint) | cols (varint) | NMines (varint) | firstClickSafe (byte)
+ *           | length (varint) | name of the generator algorithm (UTF-8)
+ *   game    GAME (byte) | time (varint) | seed (8 bytes)
+ *   move    UNCOVER, FLAG or CHORD (byte) | time (varint) | cell index row * cols + col (varint)
+ *   undo    UNDO or REDO (byte) | time (varint)
+ * </pre>
+ * The time of an event is the milliseconds since the previous one. A varint is an unsigned LEB128, seven bits per
+ * byte: a move on a 1000x1000 board takes 4 to 5 bytes. Only the moves that changed the board are logged.
+ * <p>
+ * The records are gathered in a direct buffer and written to a {@link FileChannel} when it is full, when a game ends,
+ * when the next one starts and on {@link #close}: a process killed in the middle of a game loses the moves of that
+ * game at most. The log is written on the thread applying the moves; a failure to write is thrown as an
+ * {@link UncheckedIOException} from the move. The methods are synchronized, so that the log may be closed from
+ * another thread, e.g. a shutdown hook, while the moves are applied; the events logged after it is closed are
+ * dropped.
+ */
+public final class MoveLog implements Closeable {
+    static final int MAGIC = 0x4D534C47; // "MSLG"
+    static final byte VERSION = 3;
+
+    static final byte GAME = 0;
+    static final byte UNCOVER = 1;
+    static final byte FLAG = 2;
+    static final byte CHORD = 3;
+    static final byte UNDO = 4;
+    static final byte REDO = 5;
+
+    /**
+     * The largest record: an opcode, two varints of up to 10 bytes and a seed.
+     */
+    private static final int MAX_RECORD = 1 + 10 + 10 + 8;
+    /**
+     * The longest name of a generator algorithm.
+     */
+    static final int MAX_GENERATOR_NAME = 256;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final int cols;
+    private long last = System.nanoTime();
+    private long events;
+    private boolean closed;
+
+    /**
+     * Create a log file, replacing any, and log the current game of the board as the first one. The log is to be
+     * created before the first move of the game.
+     *
+     * @param path  the file of the log
+     * @param board the board the moves are applied on
+     * @throws IOException if the file cannot be created, or the name of the generator is too long
+     */
+    public MoveLog(Path path, PlayableBoard board) throws IOException {
+        byte[] name = board.getGeneratorName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_GENERATOR_NAME)
+            throw new IOException("generator name too long: " + board.getGeneratorName());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.cols = board.getCols();
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        putVarint(board.getRows());
+        putVarint(cols);
+        putVarint(board.getNMines());
+        buffer.put((byte) (board.isFirstClickSafe() ? 1 : 0));
+        putVarint(name.length);
+        buffer.put(name);
+        newGame(board.getSeed());
+    }
+
+    /**
+     * Log the start of a game, after writing the moves of the previous one.
+     *
+     * @param seed the seed of the game
+     */
+    synchronized void newGame(long seed) {
+        if (closed)
+            return;
+        if (events > 0)
+            flush();
+        begin(GAME);
+        buffer.putLong(seed);
+    }
+
+    /**
+     * Log a move that changed the board.
+     *
+     * @param op  {@link #UNCOVER}, {@link #FLAG} or {@link #CHORD}
+     * @param row row index of the cell
+     * @param col column index of the cell
+     */
+    synchronized void move(byte op, int row, int col) {
+        if (closed)
+            return;
+        begin(op);
+        putVarint((long) row * cols + col);
+    }
+
+    /**
+     * Log an event with no cell.
+     *
+     * @param op {@link #UNDO} or {@link #REDO}
+     */
+    synchronized void event(byte op) {
+        if (!closed)
+            begin(op);
+    }
+
+    private void begin(byte op) {
+        if (buffer.remaining() < MAX_RECORD)
+            flush();
+        long now = System.nanoTime();
+        buffer.put(op);
+        putVarint((now - last) / 1_000_000L);
+        // keep the remainder, so the times do not drift
+        last = now - (now - last) % 1_000_000L;
+        events++;
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Write the buffered records to the file. Does nothing once the log is closed.
+     */
+    public synchronized void flush() {
+        if (closed)
+            return;
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * @return the number of events logged, games included
+     */
+    public synchronized long getEvents() {
+        return events;
+    }
+
+    /**
+     * Write the buffered records and close the file. Does nothing if the log is already closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+}
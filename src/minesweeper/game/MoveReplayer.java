@@ -0,0 +1,256 @@
+package minesweeper.game;
+
+import minesweeper.game.states.GameState;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Replays a {@link MoveLog} on a headless {@link GameEngine}, as fast as the engine applies the moves.
+ * <p>
+ * The log is read in memory and scanned once for the start of each game, so that {@link #seek} can rebuild any
+ * position of any game by replaying that game alone. A record cut short at the end of the file, as left by a
+ * process that died while writing, ends the log.
+ * <p>
+ * Usage: {@code MoveReplayer log} prints each game of a log: its seed, its moves, its result and its duration.
+ */
+public final class MoveReplayer {
+    private final ByteBuffer data;
+    private final GameEngine engine;
+    private final int rows, cols;
+    /**
+     * The offset of the record of each game, and its time since the start of the log.
+     */
+    private int[] gameOffsets = new int[16];
+    private long[] gameTimes = new long[16];
+    private int games;
+    /**
+     * The end of the last whole record.
+     */
+    private int end;
+
+    private int game = -1, move;
+    private long time;
+
+    /**
+     * Read a log.
+     *
+     * @param path the file of the log
+     * @throws IOException if the file cannot be read or is not a move log
+     */
+    public MoveReplayer(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("log too large: " + channel.size());
+            data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) >= 0)
+                ;
+            data.flip();
+        }
+        int NMines;
+        boolean firstClickSafe;
+        String generator;
+        try {
+            if (data.getInt() != MoveLog.MAGIC)
+                throw new IOException("not a move log: " + path);
+            if (data.get() != MoveLog.VERSION)
+                throw new IOException("unknown move log version: " + path);
+            rows = (int) getVarint();
+            cols = (int) getVarint();
+            NMines = (int) getVarint();
+            firstClickSafe = data.get() != 0;
+            int nameLength = (int) getVarint();
+            if (nameLength < 0 || nameLength > MoveLog.MAX_GENERATOR_NAME)
+                throw new IOException("corrupt move log header: " + path);
+            byte[] name = new byte[nameLength];
+            data.get(name);
+            generator = new String(name, StandardCharsets.UTF_8);
+            scan();
+            if (games == 0)
+                throw new IOException("no game in the log: " + path);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated move log header: " + path, e);
+        }
+        data.position(gameOffsets[0]);
+        data.get();
+        getVarint();
+        try {
+            long seed = data.getLong();
+            if (generator.equals(ChunkedBoard.GENERATOR))
+                engine = new GameEngine(new ChunkedBoard(rows, cols, NMines, seed, firstClickSafe));
+            else
+                engine = new GameEngine(new Board(rows, NMines, seed, firstClickSafe,
+                        RandomGeneratorFactory.of(generator)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("invalid board or unknown generator in move log: " + path, e);
+        }
+        // the log may take back moves
+        engine.getBoard().setHistoryEnabled(true);
+        data.position(gameOffsets[0]);
+    }
+
+    /**
+     * Find the start of each game and the end of the last whole record.
+     */
+    private void scan() {
+        long t = 0;
+        end = data.position();
+        try {
+            while (data.hasRemaining()) {
+                int offset = data.position();
+                byte op = data.get();
+                t += getVarint();
+                if (op == MoveLog.GAME) {
+                    data.getLong();
+                    if (games == gameOffsets.length) {
+                        gameOffsets = Arrays.copyOf(gameOffsets, games * 2);
+                        gameTimes = Arrays.copyOf(gameTimes, games * 2);
+                    }
+                    gameOffsets[games] = offset;
+                    gameTimes[games] = t;
+                    games++;
+                } else if (op != MoveLog.UNDO && op != MoveLog.REDO) {
+                    getVarint();
+                }
+                end = data.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // a record cut short, the log ends at the previous one
+        }
+    }
+
+    private long getVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * Apply the next event of the log: start the next game, or apply a move.
+     *
+     * @return false at the end of the log
+     */
+    public boolean next() {
+        if (data.position() >= end)
+            return false;
+        byte op = data.get();
+        time += getVarint();
+        if (op == MoveLog.GAME) {
+            engine.reset(data.getLong());
+            game++;
+            move = 0;
+            return true;
+        }
+        if (op == MoveLog.UNDO || op == MoveLog.REDO) {
+            if (op == MoveLog.UNDO)
+                engine.undo();
+            else
+                engine.redo();
+            move++;
+            return true;
+        }
+        int key = (int) getVarint();
+        int row = key / cols, col = key % cols;
+        switch (op) {
+            case MoveLog.UNCOVER:
+                engine.uncover(row, col);
+                break;
+            case MoveLog.FLAG:
+                engine.toggleFlag(row, col);
+                break;
+            case MoveLog.CHORD:
+                engine.chord(row, col);
+                break;
+            default:
+                throw new IllegalStateException("unknown opcode " + op + " at " + (data.position() - 1));
+        }
+        move++;
+        return true;
+    }
+
+    /**
+     * Rebuild a position: the game is started again from its seed and its first moves are applied.
+     *
+     * @param game  the index of the game in the log
+     * @param moves the number of moves to apply, undo and redo included; the whole game if it has fewer
+     * @throws IndexOutOfBoundsException if there is no such game
+     */
+    public void seek(int game, int moves) {
+        if (game < 0 || game >= games)
+            throw new IndexOutOfBoundsException("game " + game + " of " + games);
+        data.position(gameOffsets[game]);
+        this.game = game - 1;
+        next();
+        time = gameTimes[game];
+        int stop = game + 1 < games ? gameOffsets[game + 1] : end;
+        while (move < moves && data.position() < stop)
+            next();
+    }
+
+    /**
+     * @return the engine the moves are applied on
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return the number of games in the log
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return the index of the current game, -1 before the first event
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * @return the number of moves of the current game replayed so far, undo and redo included
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return the milliseconds from the start of the log to the last event replayed
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public static void main(String[] args) throws IOException {
+        MoveReplayer replayer = new MoveReplayer(Paths.get(args[0]));
+        System.out.printf("%d games on a %dx%d board%n", replayer.games, replayer.rows, replayer.cols);
+        System.out.printf("%6s %20s %7s %8s %10s%n", "game", "seed", "moves", "result", "time (ms)");
+        long start = System.nanoTime();
+        long events = 0;
+        for (int g = 0; g < replayer.games; g++) {
+            replayer.seek(g, Integer.MAX_VALUE);
+            events += replayer.move + 1;
+            GameState state = replayer.engine.getGameState();
+            long duration = replayer.time - replayer.gameTimes[g];
+            System.out.printf(Locale.ROOT, "%6d %20d %7d %8s %10d%n", g, replayer.engine.getBoard().getSeed(),
+                    replayer.move, state, duration);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "replayed %d events in %.3f s, %.0f events/s%n", events, seconds,
+                events / seconds);
+    }
+}
@@ -0,0 +1,83 @@
+package minesweeper.game;
+
+import minesweeper.game.states.GameState;
+
+/**
+ * The outcome of a move on the {@link Board}: whether it was applied, how many cells it uncovered and the state of
+ * the game after it. Callers read the result of their move instead of querying the board again.
+ */
+public final class MoveResult {
+    /**
+     * Results of moves that were not applied, one per game state, so ignoring a move does not allocate.
+     */
+    private static final MoveResult[] IGNORED = new MoveResult[GameState.values().length];
+
+    static {
+        for (GameState state : GameState.values())
+            IGNORED[state.ordinal()] = new MoveResult(false, 0, state);
+    }
+
+    private final boolean applied;
+    private final int revealed;
+    private final GameState gameState;
+
+    private MoveResult(boolean applied, int revealed, GameState gameState) {
+        this.applied = applied;
+        this.revealed = revealed;
+        this.gameState = gameState;
+    }
+
+    /**
+     * Result of a move that changed the board.
+     *
+     * @param revealed  the number of cells uncovered by the move
+     * @param gameState the state of the game after the move
+     * @return the result
+     */
+    static MoveResult applied(int revealed, GameState gameState) {
+        return new MoveResult(true, revealed, gameState);
+    }
+
+    /**
+     * Result of a move that was not viable and left the board untouched.
+     *
+     * @param gameState the (unchanged) state of the game
+     * @return the result
+     */
+    static MoveResult ignored(GameState gameState) {
+        return IGNORED[gameState.ordinal()];
+    }
+
+    /**
+     * @return true if the move was viable and performed
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * @return the number of cells uncovered by the move, a fired mine included
+     */
+    public int getRevealed() {
+        return revealed;
+    }
+
+    /**
+     * @return the state of the game after the move
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * @return true if the game is over after the move
+     */
+    public boolean isFinished() {
+        return gameState != GameState.ONGOING;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveResult{applied=" + applied + ", revealed=" + revealed + ", gameState=" + gameState + "}";
+    }
+}
@@ -0,0 +1,127 @@
+package minesweeper.game;
+
+/**
+ * A board the moves are applied on, whatever the way it stores its cells: a {@link Board} held in bit planes, a
+ * {@link ChunkedBoard} far too large for them, or an {@link InfiniteWindow} over an unbounded board. A
+ * {@link GameEngine} drives its board through this interface.
+ * <p>
+ * The history of the moves is optional: a board without one ignores {@link #setHistoryEnabled} and has nothing to
+ * undo.
+ */
+public interface PlayableBoard extends BoardView {
+    /**
+     * Uncover a cell. If it is a mine the game is lost, else the region around it opens if it has no mine around.
+     * The game is won once every cell that is not a mine is uncovered.
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over or the cell is not covered
+     */
+    MoveResult uncoverCell(int row, int col);
+
+    /**
+     * Uncover every covered neighbour of an uncovered cell whose mines are all flagged (an LR click).
+     *
+     * @param row row index of the cell
+     * @param col column index of the cell
+     * @return the result of the move; not applied if the game is over or the cell lacks conditions to expand
+     */
+    MoveResult inferOnCell(int row, int col);
+
+    /**
+     * Flag or un-flag a cell.
+     *
+     * @param row row index
+     * @param col column index
+     * @return -1 if the cell was flagged, 1 if it was unflagged, 0 if the move is not viable or the game is over
+     */
+    int toggleFlag(int row, int col);
+
+    /**
+     * @return the number of flags placed
+     */
+    int getNFlagged();
+
+    /**
+     * Start a new game, with the next seed derived from the seed of the board.
+     */
+    void reset();
+
+    /**
+     * Start a new game with the given seed.
+     *
+     * @param seed the seed of the game
+     */
+    void reset(long seed);
+
+    /**
+     * @return the seed the mines of the current game are placed with
+     */
+    long getSeed();
+
+    /**
+     * @return true if the first uncovered cell and its neighbours are kept free of mines
+     */
+    boolean isFirstClickSafe();
+
+    /**
+     * @return the name of the generator algorithm of the mine placement, recorded by {@link MoveLog}
+     */
+    String getGeneratorName();
+
+    /**
+     * Temporarily show the covered cells around (row, col) as {@code TEMP_UNC0}, a chord that cannot be applied.
+     *
+     * @param row the center cell row index
+     * @param col the center cell column index
+     */
+    void changeTempToUNC0(int row, int col);
+
+    /**
+     * Restore the appearance of the cells {@link #changeTempToUNC0} changed.
+     *
+     * @param row the center cell row index
+     * @param col the center cell column index
+     */
+    void restoreTempUNC0(int row, int col);
+
+    /**
+     * Journal the moves for {@link #undo}, or stop and drop the history. A board without a history ignores it.
+     *
+     * @param enabled whether the moves are journaled
+     */
+    default void setHistoryEnabled(boolean enabled) {
+    }
+
+    /**
+     * Take back the last move applied.
+     *
+     * @return false if there is no move to undo
+     */
+    default boolean undo() {
+        return false;
+    }
+
+    /**
+     * Apply again the last move undone.
+     *
+     * @return the result of the move, null if there is no move to redo
+     */
+    default MoveResult redo() {
+        return null;
+    }
+
+    /**
+     * @return the number of moves that can be undone
+     */
+    default int getUndoable() {
+        return 0;
+    }
+
+    /**
+     * @return the number of moves that can be redone
+     */
+    default int getRedoable() {
+        return 0;
+    }
+}
@@ -87,9 +87,15 @@ public enum CellState {
         }
         return true;
     }
-    
+
+    /**
+     * Check if the cell is still covered, i.e. neither uncovered nor flagged.
+     *
+     * @param state the state to test
+     * @return true if is COVERED, otherwise false
+     */
     public static boolean isCovered(CellState state) {
-        return (state == Covered);
+        return (state == COVERED);
     }
 
     /**
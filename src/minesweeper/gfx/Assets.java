@@ -5,13 +5,27 @@ import minesweeper.game.states.CellState;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Class Assets: <p>
  * Crop icons from the sprite sheet and cache as static buffered images
  * Static methods to draw icons with graphics
+ * <p>
+ * Every icon is copied out of its sheet into an image of the format of the screen: a cropped sub-image shares the
+ * raster of the whole sheet, in the format the file was decoded to, and is drawn through a slow conversion loop
+ * each time instead of a straight blit that the pipeline can cache in video memory.
+ * <p>
+ * The files are decoded in parallel, off the calling thread, once per run: {@link #load} starts the loading early,
+ * for instance while the player chooses the difficulty, and {@link #init} waits for it.
  */
 public class Assets {
     /**
@@ -22,6 +36,10 @@ public class Assets {
     public static final int numberHeight = 23;
     public static final int faceHeight = 32;
     public static final int faceWidth = 32;
+    /**
+     * The zoom levels of the board: at level k a cell is {@code width >> k} pixels wide, down to one pixel per cell.
+     */
+    public static final int ZOOM_LEVELS = 5;
 
     public static BufferedImage[] uncovered = new BufferedImage[9];
     public static BufferedImage covered;
@@ -30,35 +48,203 @@ public class Assets {
     public static BufferedImage[] number = new BufferedImage[10];
     public static BufferedImage hyphen;
     public static BufferedImage smile, onclick, win, lose;
+    /**
+     * The cell images downsampled for each zoom level, indexed by level then by {@link CellState#ordinal()}.
+     */
+    private static BufferedImage[][] mips;
+    /**
+     * The cell images at full size, indexed by {@link CellState#ordinal()}.
+     */
+    private static BufferedImage[] cells;
+
+    /**
+     * The range of a counter: three digits, or a minus sign and two digits.
+     */
+    public static final int COUNTER_MIN = -99, COUNTER_MAX = 999;
+    /**
+     * The strips of the values of a counter, indexed by value - {@link #COUNTER_MIN}, each composed the first time
+     * its value is drawn: drawing a counter allocates nothing afterwards, and the loading does not compose the 1099
+     * strips (about 3.6 MB) when a game shows a few dozen of them.
+     */
+    private static final BufferedImage[] counters = new BufferedImage[COUNTER_MAX - COUNTER_MIN + 1];
 
+    /**
+     * The loading, started by the first call to {@link #load}.
+     */
+    private static CompletableFuture<Void> loading;
+    /**
+     * The wall time of the decoding of the files, the sum of the times of each file, and the time of the cropping
+     * and the conversions.
+     */
+    private static long decodeNanos, decodeCpuNanos, cropNanos;
+
+    /**
+     * Start loading the static files if it is not started yet. The files are decoded in parallel, then the icons
+     * are cropped and converted.
+     *
+     * @return the loading, completed exceptionally if a file cannot be read
+     */
+    public static synchronized CompletableFuture<Void> load() {
+        if (loading == null) {
+            long start = System.nanoTime();
+            String[] names = {"static/predatorskin.bmp", "static/cloneskin.bmp",
+                    "static/smile.png", "static/onclick.png", "static/win.png", "static/lose.png"};
+            List<CompletableFuture<BufferedImage>> files = new ArrayList<>(names.length);
+            for (String name : names) {
+                files.add(CompletableFuture.supplyAsync(() -> {
+                    long t = System.nanoTime();
+                    BufferedImage image = loadImage(name);
+                    synchronized (Assets.class) {
+                        decodeCpuNanos += System.nanoTime() - t;
+                    }
+                    return image;
+                }));
+            }
+            loading = CompletableFuture.allOf(files.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+                long t = System.nanoTime();
+                decodeNanos = t - start;
+                crop(files.get(0).join(), files.get(1).join(), files.get(2).join(), files.get(3).join(),
+                        files.get(4).join(), files.get(5).join());
+                cropNanos = System.nanoTime() - t;
+            });
+        }
+        return loading;
+    }
+
+    /**
+     * Load the static files, or wait for the loading started by {@link #load} to end. Does nothing once they are
+     * loaded.
+     *
+     * @throws UncheckedIOException if a file cannot be read
+     */
     public static void init() {
-        System.out.println("Loading static files:");
-        SpriteSheet predatorSheet = new SpriteSheet(loadImage("static/predatorskin.bmp"));
-        System.out.println("predatorskind ok");
+        try {
+            load().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
 
-        SpriteSheet cloneSheet = new SpriteSheet(loadImage("static/cloneskin.bmp"));
-        System.out.println("cloneskin ok");
+    /**
+     * @return the times of the loading, for a startup report
+     */
+    public static synchronized String timings() {
+        return String.format(Locale.ROOT, "decode %.1f ms (%.1f ms summed over the files), crop %.1f ms",
+                decodeNanos / 1e6, decodeCpuNanos / 1e6, cropNanos / 1e6);
+    }
 
+    private static void crop(BufferedImage predator, BufferedImage clone, BufferedImage smileImage,
+                             BufferedImage onclickImage, BufferedImage winImage, BufferedImage loseImage) {
+        SpriteSheet predatorSheet = new SpriteSheet(predator);
+        SpriteSheet cloneSheet = new SpriteSheet(clone);
 
         for (int i = 0; i < uncovered.length; i++) {
-            uncovered[i] = predatorSheet.crop(0, i, width);
+            uncovered[i] = compatible(predatorSheet.crop(0, i, width));
         }
 
-        covered = predatorSheet.crop(1, 0, width);
-        mine = predatorSheet.crop(1, 2, width);
-        flag = predatorSheet.crop(1, 3, width);
-        wrongFlag = predatorSheet.crop(1, 4, width);
-        bombMine = predatorSheet.crop(1, 5, width);
+        covered = compatible(predatorSheet.crop(1, 0, width));
+        mine = compatible(predatorSheet.crop(1, 2, width));
+        flag = compatible(predatorSheet.crop(1, 3, width));
+        wrongFlag = compatible(predatorSheet.crop(1, 4, width));
+        bombMine = compatible(predatorSheet.crop(1, 5, width));
 
         for (int i=0; i < 10; i++) {
-            number[i] = cloneSheet.crop(i * numberWidth, width * 2, numberWidth, numberHeight);
+            number[i] = compatible(cloneSheet.crop(i * numberWidth, width * 2, numberWidth, numberHeight));
+        }
+        hyphen = compatible(cloneSheet.crop(10 * numberWidth, width * 2, numberWidth, numberHeight));
+
+        smile = compatible(smileImage);
+        onclick = compatible(onclickImage);
+        win = compatible(winImage);
+        lose = compatible(loseImage);
+
+        buildCells();
+        buildMips();
+    }
+
+    /**
+     * Copy an image into one of the format of the default screen, with its own raster. Headless, the format is the
+     * usual packed int RGB, or ARGB for an image with transparency.
+     */
+    private static BufferedImage compatible(BufferedImage src) {
+        BufferedImage dst = blank(src.getWidth(), src.getHeight(), src.getColorModel().getTransparency());
+        Graphics2D g = dst.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(src, 0, 0, null);
+        g.dispose();
+        return dst;
+    }
+
+    /**
+     * A new image of the format of the default screen, see {@link #compatible}.
+     */
+    private static BufferedImage blank(int w, int h, int transparency) {
+        if (GraphicsEnvironment.isHeadless())
+            return new BufferedImage(w, h, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(w, h, transparency);
+    }
+
+    /**
+     * Index the cell images by state.
+     */
+    private static void buildCells() {
+        cells = new BufferedImage[CellState.values().length];
+        cells[CellState.COVERED.ordinal()] = covered;
+        cells[CellState.FLAGGED.ordinal()] = flag;
+        cells[CellState.TEMP_UNC0.ordinal()] = uncovered[0]; // used for blink
+        for (int i = 0; i < uncovered.length; i++)
+            cells[CellState.UNC0.ordinal() + i] = uncovered[i];
+        cells[CellState.WRONG_FLAG.ordinal()] = wrongFlag;
+        cells[CellState.MINE.ordinal()] = mine;
+        cells[CellState.FIRED_MINE.ordinal()] = bombMine;
+    }
+
+    /**
+     * Downsample the cell images by halves, averaging each 2x2 block of pixels. At one pixel per cell, the color of
+     * a cell is the mean color of its image: the board becomes a heat map of covered, uncovered and flagged cells.
+     */
+    private static void buildMips() {
+        CellState[] states = CellState.values();
+        mips = new BufferedImage[ZOOM_LEVELS][];
+        mips[0] = cells;
+        for (int level = 1; level < ZOOM_LEVELS; level++) {
+            mips[level] = new BufferedImage[states.length];
+            for (int s = 0; s < states.length; s++)
+                mips[level][s] = compatible(halve(mips[level - 1][s]));
+        }
+    }
+
+    private static BufferedImage halve(BufferedImage src) {
+        int w = src.getWidth() / 2, h = src.getHeight() / 2;
+        BufferedImage dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int r = 0, g = 0, b = 0;
+                for (int k = 0; k < 4; k++) {
+                    int rgb = src.getRGB(2 * x + (k & 1), 2 * y + (k >> 1));
+                    r += (rgb >> 16) & 0xFF;
+                    g += (rgb >> 8) & 0xFF;
+                    b += rgb & 0xFF;
+                }
+                dst.setRGB(x, y, ((r >> 2) << 16) | ((g >> 2) << 8) | (b >> 2));
+            }
         }
-        hyphen = cloneSheet.crop(10 * numberWidth, width * 2, numberWidth, numberHeight);
+        return dst;
+    }
 
-        smile = loadImage("static/smile.png");
-        onclick = loadImage("static/onclick.png");
-        win = loadImage("static/win.png");
-        lose = loadImage("static/lose.png");
+    /**
+     * Get the image of a cell at a zoom level.
+     *
+     * @param cellState the state of the cell
+     * @param level     the zoom level, from 0 (full size) to {@link #ZOOM_LEVELS} - 1
+     * @return the image, {@code width >> level} pixels wide
+     */
+    public static Image cellImage(CellState cellState, int level) {
+        return mips[level][cellState.ordinal()];
     }
 
 
@@ -68,83 +254,30 @@ public class Assets {
     }
 
     public static Image cellState2Image(CellState cellState) {
-        BufferedImage img = covered;
-
-        switch (cellState) {
-            case COVERED:
-                img = covered;
-                break;
-            case FLAGGED:
-                img = flag;
-                break;
-            case TEMP_UNC0: // used for blink
-                img = uncovered[0];
-                break;
-            case UNC0:
-                img = uncovered[0];
-                break;
-            case UNC1:
-                img = uncovered[1];
-                break;
-            case UNC2:
-                img = uncovered[2];
-                break;
-            case UNC3:
-                img = uncovered[3];
-                break;
-            case UNC4:
-                img = uncovered[4];
-                break;
-            case UNC5:
-                img = uncovered[5];
-                break;
-            case UNC6:
-                img = uncovered[6];
-                break;
-            case UNC7:
-                img = uncovered[7];
-                break;
-            case UNC8:
-                img = uncovered[8];
-                break;
-            case WRONG_FLAG:
-                img = wrongFlag;
-                break;
-            case MINE:
-                img = mine;
-                break;
-            case FIRED_MINE:
-                img = bombMine;
-                break;
-        }
-        return img;
+        return cells[cellState.ordinal()];
     }
 
     private static BufferedImage loadImage(String name) {
         try {
             ClassLoader classloader = Assets.class.getClassLoader();
             URL url = classloader.getResource(name);
-            assert url != null;
-            return ImageIO.read(url);
+            if (url == null)
+                throw new FileNotFoundException(name);
+            BufferedImage image = ImageIO.read(url);
+            if (image == null)
+                throw new IOException("cannot decode " + name);
+            return image;
         } catch (IOException e) {
-            e.printStackTrace();
-            System.exit(1);
+            throw new UncheckedIOException(e);
         }
-        return null;
     }
 
     public static void drawMinesCnt(int left, Graphics g) {
-        BufferedImage[] imgs = intToBfimgArray(left);
-        for (int i = 0; i < 3; i++) {
-            g.drawImage(imgs[i], i * numberWidth, 0, null);
-        }
+        g.drawImage(counter(left), 0, 0, null);
     }
 
     public static void drawTime(int elapse, Graphics g, int N) {
-        BufferedImage[] imgs = intToBfimgArray(elapse);
-        for (int i = 0; i < 3; i++) {
-            g.drawImage(imgs[i], N * width + i * numberWidth - 3 * numberWidth, 0, null);
-        }
+        g.drawImage(counter(elapse), N * width - 3 * numberWidth, 0, null);
     }
 
     public static Image stringToFaceImg(String face) {
@@ -170,53 +303,27 @@ public class Assets {
     }
 
     /**
-     * 12 -> "012"
-     * Three digits at most
-     *
-     * @param digits number
-     * @return the array of {@link BufferedImage} of size three that represents the number
-     */
-    private static BufferedImage[] intToBfimgArray(int digits) {
-        char[] text = String.format("%03d", digits).toCharArray();
-        BufferedImage[] bfimg = new BufferedImage[3];
-        BufferedImage img = number[0];
-        for (int i = 0; i < 3; i++) {
-            char e = text[i];
-            switch (e) {
-                case '0':
-                    img = number[0];
-                    break;
-                case '1':
-                    img = number[1];
-                    break;
-                case '2':
-                    img = number[2];
-                    break;
-                case '3':
-                    img = number[3];
-                    break;
-                case '4':
-                    img = number[4];
-                    break;
-                case '5':
-                    img = number[5];
-                    break;
-                case '6':
-                    img = number[6];
-                    break;
-                case '7':
-                    img = number[7];
-                    break;
-                case '8':
-                    img = number[8];
-                    break;
-                case '9':
-                    img = number[9];
-                    break;
-            }
-            bfimg[i] = img;
-        }
-        return bfimg;
+     * Compose the strip of the three digits of a value of a counter: 12 -> 012, -5 -> -05.
+     */
+    private static BufferedImage buildCounter(int value) {
+        BufferedImage strip = blank(3 * numberWidth, numberHeight, Transparency.OPAQUE);
+        Graphics g = strip.getGraphics();
+        int abs = Math.abs(value);
+        g.drawImage(value < 0 ? hyphen : number[abs / 100], 0, 0, null);
+        g.drawImage(number[abs / 10 % 10], numberWidth, 0, null);
+        g.drawImage(number[abs % 10], 2 * numberWidth, 0, null);
+        g.dispose();
+        return strip;
     }
 
+    /**
+     * The strip of a counter, the value clamped to the range shown, composed on its first use.
+     */
+    private static BufferedImage counter(int value) {
+        int i = Math.max(COUNTER_MIN, Math.min(COUNTER_MAX, value)) - COUNTER_MIN;
+        BufferedImage strip = counters[i];
+        if (strip == null)
+            strip = counters[i] = buildCounter(i + COUNTER_MIN);
+        return strip;
+    }
 }
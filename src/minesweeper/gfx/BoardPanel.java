@@ -1,28 +1,324 @@
 package minesweeper.gfx;
 
-import minesweeper.game.Board;
-import minesweeper.game.states.CellState;
+import minesweeper.game.BoardListener;
+import minesweeper.game.BoardView;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
 
-public class BoardPanel extends JPanel {
-    Board board;
+/**
+ * The board canvas. It listens to the board and repaints only the cells that changed.
+ * <p>
+ * The changes are gathered into the bounding box of the dirty cells, and a single repaint of that box is posted to
+ * the event dispatch thread for the whole burst: a cascade of a thousand cells, or a robot step, is one repaint.
+ * The {@link RepaintManager} unions the dirty regions of a component anyway, so one box loses nothing. The moves may
+ * be applied on another thread (the robot), hence the lock on the box.
+ * <p>
+ * The panel is meant to sit in a {@link JScrollPane}: only the cells in the clip, the visible part of the board, are
+ * painted. It zooms out by halves with the images of {@link Assets#cellImage}, down to one pixel per cell, with the
+ * control key and the mouse wheel or with {@link #zoom}.
+ * <p>
+ * The board is kept in a back buffer, a {@link VolatileImage} if the screen can accelerate it and a
+ * {@link BufferedImage} otherwise. Only the cells changed since the last paint are drawn into it, then the clip is
+ * copied to the screen in a single {@code drawImage}. When the accelerated buffer loses its contents, every cell is
+ * drawn again. When the board at the current zoom is larger than {@link #MAX_BUFFER_PIXELS}, there is no buffer and
+ * the visible cells are painted one by one, and no cell is tracked: a board of millions of cells costs nothing but the
+ * cells on screen.
+ */
+public class BoardPanel extends JPanel implements BoardListener {
+    /**
+     * The largest back buffer, 64 MB of pixels.
+     */
+    static final long MAX_BUFFER_PIXELS = 1L << 24;
 
-    public BoardPanel(Board board) {
+    BoardView board;
+
+    /**
+     * The zoom level, a cell is {@code Assets.width >> level} pixels wide.
+     */
+    private int level;
+
+    /**
+     * The dirty cells, from (minRow, minCol) to (maxRow, maxCol) inclusive; empty when minRow > maxRow.
+     */
+    private int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE, maxRow = -1, maxCol = -1;
+    /**
+     * A flush of the dirty box is posted and has not run yet.
+     */
+    private boolean posted;
+
+    /**
+     * The back buffer, a {@link VolatileImage} or a {@link BufferedImage}; null until the first paint at this zoom,
+     * or if the board is too large.
+     */
+    private Image buffer;
+    /**
+     * Bitset of the cells that changed since they were drawn into the buffer, row-major; null while there is no
+     * buffer. The listener sets bits in it under the lock; to draw, the event dispatch thread swaps it with
+     * {@link #drawing}, so the cells are drawn without holding the lock and the moves of the robot are not held up.
+     */
+    private long[] stale;
+    /**
+     * The other bitset, all clear but while the cells it holds are drawn.
+     */
+    private long[] drawing;
+    /**
+     * Every cell of the buffer is to be drawn again.
+     */
+    private boolean allStale = true;
+
+    public BoardPanel(BoardView board) {
         this.board = board;
+        board.addBoardListener(this);
+        addMouseWheelListener(this::wheelMoved);
+    }
+
+    /**
+     * @return the side of a cell in pixels at the current zoom
+     */
+    public int getCellSize() {
+        return Assets.width >> level;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int cell = getCellSize();
+        return new Dimension(board.getCols() * cell, board.getRows() * cell);
+    }
+
+    /**
+     * The row of the cell at a point of the panel.
+     *
+     * @param y vertical coordinate
+     * @return the row index, -1 if the point is off the board
+     */
+    public int rowAt(int y) {
+        int row = y / getCellSize();
+        return y >= 0 && row < board.getRows() ? row : -1;
+    }
+
+    /**
+     * The column of the cell at a point of the panel.
+     *
+     * @param x horizontal coordinate
+     * @return the column index, -1 if the point is off the board
+     */
+    public int colAt(int x) {
+        int col = x / getCellSize();
+        return x >= 0 && col < board.getCols() ? col : -1;
+    }
+
+    /**
+     * Zoom in or out, keeping the cell under a point where it is in the viewport.
+     *
+     * @param steps  the number of halvings, positive to zoom out, negative to zoom in
+     * @param anchor the point of the panel that stays still, null for the center of the visible part
+     */
+    public void zoom(int steps, Point anchor) {
+        int next = Math.max(0, Math.min(Assets.ZOOM_LEVELS - 1, level + steps));
+        if (next == level)
+            return;
+        JViewport viewport = getParent() instanceof JViewport ? (JViewport) getParent() : null;
+        Rectangle visible = viewport != null ? viewport.getViewRect() : getVisibleRect();
+        if (anchor == null)
+            anchor = new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+        int before = getCellSize();
+        level = next;
+        int after = getCellSize();
+        synchronized (this) {
+            allStale = true;
+            stale = null;
+            drawing = null;
+        }
+        if (buffer != null)
+            buffer.flush();
+        buffer = null;
+
+        if (viewport != null) {
+            int x = (int) ((long) anchor.x * after / before) - (anchor.x - visible.x);
+            int y = (int) ((long) anchor.y * after / before) - (anchor.y - visible.y);
+            Dimension size = getPreferredSize();
+            viewport.setViewSize(size);
+            viewport.setViewPosition(new Point(Math.max(0, Math.min(x, size.width - visible.width)),
+                    Math.max(0, Math.min(y, size.height - visible.height))));
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Zoom with the control key held, scroll the enclosing pane otherwise.
+     */
+    private void wheelMoved(MouseWheelEvent e) {
+        if ((e.getModifiersEx() & (InputEvent.CTRL_DOWN_MASK | InputEvent.META_DOWN_MASK)) != 0) {
+            zoom(e.getWheelRotation(), e.getPoint());
+            return;
+        }
+        JScrollPane pane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+        if (pane != null)
+            pane.dispatchEvent(SwingUtilities.convertMouseEvent(this, e, pane));
     }
 
+    @Override
+    public void cellChanged(int row, int col) {
+        synchronized (this) {
+            if (stale != null) {
+                int key = row * board.getCols() + col;
+                stale[key >>> 6] |= 1L << key;
+            }
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            minCol = Math.min(minCol, col);
+            maxCol = Math.max(maxCol, col);
+            if (posted)
+                return;
+            posted = true;
+        }
+        SwingUtilities.invokeLater(this::flush);
+    }
+
+    @Override
+    public void boardChanged() {
+        synchronized (this) {
+            allStale = true;
+        }
+        cellChanged(0, 0);
+        cellChanged(board.getRows() - 1, board.getCols() - 1);
+    }
+
+    /**
+     * Repaint the dirty box, on the event dispatch thread.
+     */
+    private void flush() {
+        int r0, c0, r1, c1;
+        synchronized (this) {
+            r0 = minRow;
+            c0 = minCol;
+            r1 = maxRow;
+            c1 = maxCol;
+            minRow = minCol = Integer.MAX_VALUE;
+            maxRow = maxCol = -1;
+            posted = false;
+        }
+        int cell = getCellSize();
+        if (r0 <= r1)
+            repaint(c0 * cell, r0 * cell, (c1 - c0 + 1) * cell, (r1 - r0 + 1) * cell);
+    }
+
+    /**
+     * Bring the buffer up to date and copy the clip from it.
+     */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        CellState[][] states = board.getStates();
-        for (int i=0; i<states.length; i++) {
-            for (int j=0; j<states[0].length; j++) {
-                Image img = Assets.cellState2Image(states[i][j]);
-                g.drawImage(img, j*Assets.width, i*Assets.width, null);
+        Dimension size = getPreferredSize();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, size.width, size.height);
+        if ((long) size.width * size.height > MAX_BUFFER_PIXELS) {
+            paintCells(g, clip);
+            return;
+        }
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        do {
+            if (buffer == null) {
+                buffer = createBuffer(gc, size);
+                int words = (int) (((long) board.getRows() * board.getCols() + 63) >>> 6);
+                synchronized (this) {
+                    stale = new long[words];
+                    drawing = new long[words];
+                    allStale = true;
+                }
+            }
+            if (buffer instanceof VolatileImage) {
+                int valid = ((VolatileImage) buffer).validate(gc);
+                if (valid == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    buffer.flush();
+                    buffer = createBuffer(gc, size);
+                }
+                if (valid != VolatileImage.IMAGE_OK) {
+                    synchronized (this) {
+                        allStale = true;
+                    }
+                }
             }
+            updateBuffer();
+            g.drawImage(buffer, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                    clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+        } while (buffer instanceof VolatileImage && ((VolatileImage) buffer).contentsLost());
+    }
+
+    /**
+     * An accelerated image the size of the board, or a plain one if the panel is not on a screen yet or the screen
+     * cannot accelerate it.
+     */
+    private static Image createBuffer(GraphicsConfiguration gc, Dimension size) {
+        if (gc != null) {
+            VolatileImage image = gc.createCompatibleVolatileImage(size.width, size.height);
+            if (image != null)
+                return image;
+            return gc.createCompatibleImage(size.width, size.height);
+        }
+        return new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Draw the stale cells into the buffer. The bitsets are swapped under the lock and the cells drawn outside of it:
+     * a cell changed meanwhile is set in the other bitset and drawn on the next paint, which its change posts.
+     */
+    private void updateBuffer() {
+        long[] cells;
+        boolean all;
+        synchronized (this) {
+            cells = stale;
+            stale = drawing;
+            drawing = cells;
+            all = allStale;
+            allStale = false;
         }
+        int cols = board.getCols();
+        Graphics bg = buffer.getGraphics();
+        try {
+            if (all) {
+                Arrays.fill(cells, 0L);
+                Dimension size = getPreferredSize();
+                paintCells(bg, new Rectangle(0, 0, size.width, size.height));
+                return;
+            }
+            for (int i = 0; i < cells.length; i++) {
+                for (long w = cells[i]; w != 0; w &= w - 1) {
+                    int key = (i << 6) + Long.numberOfTrailingZeros(w);
+                    drawCell(bg, key / cols, key % cols);
+                }
+                cells[i] = 0L;
+            }
+        } finally {
+            bg.dispose();
+        }
+    }
+
+    /**
+     * Paint the cells that intersect a rectangle, one by one.
+     */
+    private void paintCells(Graphics g, Rectangle clip) {
+        int cell = getCellSize();
+        int r0 = Math.max(0, clip.y / cell);
+        int c0 = Math.max(0, clip.x / cell);
+        int r1 = Math.min(board.getRows() - 1, (clip.y + clip.height - 1) / cell);
+        int c1 = Math.min(board.getCols() - 1, (clip.x + clip.width - 1) / cell);
+        for (int i = r0; i <= r1; i++)
+            for (int j = c0; j <= c1; j++)
+                drawCell(g, i, j);
+    }
+
+    private void drawCell(Graphics g, int row, int col) {
+        int cell = getCellSize();
+        g.drawImage(Assets.cellImage(board.getCellState(row, col), level), col * cell, row * cell, null);
     }
 }
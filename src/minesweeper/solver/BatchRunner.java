@@ -0,0 +1,152 @@
+package minesweeper.solver;
+
+import minesweeper.game.GameEngine;
+import minesweeper.game.states.GameState;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Play a batch of headless games with {@link RobotPlayer}s across all cores, one engine per game, and report how
+ * the robot did.
+ * <p>
+ * Game {@code i} is played on the seed {@code seed + i}, its first click is safe, so two runs with the same
+ * parameters play the very same boards.
+ * <p>
+ * Usage: {@code BatchRunner games N NMines [seed] [threads] [strategy] [guesses]}, where strategy is one of
+ * {@link Strategy#NAMES} ({@code pairs} by default) or {@code compare} (all of them, on the same boards), and guesses
+ * is {@code safest} (the default, chosen by a {@link ProbabilityEngine}) or {@code random}.
+ */
+public class BatchRunner {
+
+    /**
+     * The outcome of one game.
+     */
+    static final class Stats {
+        long games, won, moves, guesses, deduceNanos, deduceCalls;
+
+        static Stats of(RobotPlayer player, GameState result) {
+            Stats s = new Stats();
+            s.games = 1;
+            s.won = result == GameState.WON ? 1 : 0;
+            s.moves = player.getEngine().getMoves();
+            s.guesses = player.getGuesses();
+            s.deduceNanos = player.getDeduceNanos();
+            s.deduceCalls = player.getDeduceCalls();
+            return s;
+        }
+
+        Stats merge(Stats other) {
+            Stats s = new Stats();
+            s.games = games + other.games;
+            s.won = won + other.won;
+            s.moves = moves + other.moves;
+            s.guesses = guesses + other.guesses;
+            s.deduceNanos = deduceNanos + other.deduceNanos;
+            s.deduceCalls = deduceCalls + other.deduceCalls;
+            return s;
+        }
+    }
+
+    private final int N;
+    private final int NMines;
+    private final String strategy;
+    private final boolean safest;
+
+    /**
+     * @param N        the dimension of the boards
+     * @param NMines   the number of mines
+     * @param strategy the name of the strategy, see {@link Strategy#of}
+     * @param safest   guess the cell least likely to be a mine instead of a random one
+     */
+    public BatchRunner(int N, int NMines, String strategy, boolean safest) {
+        this.N = N;
+        this.NMines = NMines;
+        this.strategy = strategy;
+        this.safest = safest;
+    }
+
+    /**
+     * Play one game on the given seed.
+     *
+     * @param seed the seed of the board and of the robot's guesses
+     * @return the outcome
+     */
+    Stats playOne(long seed) {
+        GameEngine engine = new GameEngine(N, NMines, seed, true);
+        RobotPlayer player = new RobotPlayer(engine, new SplittableRandom(seed), Strategy.of(strategy), safest);
+        return Stats.of(player, player.play());
+    }
+
+    /**
+     * Play the games on seeds {@code seed} to {@code seed + games - 1} with the given number of threads.
+     */
+    Stats run(long seed, int games, int threads) throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(seed, seed + games)
+                    .parallel()
+                    .mapToObj(this::playOne)
+                    .reduce(new Stats(), Stats::merge)).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: BatchRunner games N NMines [seed] [threads] [single|pairs|gauss|tiles|compare]"
+                    + " [safest|random]");
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        int N = Integer.parseInt(args[1]);
+        int NMines = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        String strategy = args.length > 5 ? args[5] : "pairs";
+        boolean safest = args.length <= 6 || !args[6].equals("random");
+        compare(games, N, NMines, seed, threads, strategy.equals("compare") ? Strategy.NAMES : new String[]{strategy},
+                safest);
+    }
+
+    /**
+     * Play the same games with each strategy and report how they did.
+     *
+     * @param strategies the names of the strategies
+     */
+    public static void compare(int games, int N, int NMines, long seed, int threads, String[] strategies,
+                               boolean safest) throws Exception {
+        System.out.printf("%d games of %dx%d with %d mines, seeds %d..%d, %d threads, %s guesses%n",
+                games, N, N, NMines, seed, seed + games - 1, threads, safest ? "safest" : "random");
+        Stats first = null;
+        for (String name : strategies) {
+            Stats s = report(name, new BatchRunner(N, NMines, name, safest), seed, games, threads);
+            if (first == null) {
+                first = s;
+            } else {
+                System.out.printf("  guesses avoided  %.2f/game over %s%n",
+                        (double) (first.guesses - s.guesses) / games, strategies[0]);
+                System.out.printf("  win rate uplift  %+.2f points over %s%n",
+                        100.0 * (s.won - first.won) / games, strategies[0]);
+            }
+        }
+    }
+
+    private static Stats report(String name, BatchRunner runner, long seed, int games, int threads) throws Exception {
+        long start = System.nanoTime();
+        Stats s = runner.run(seed, games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("strategy: " + name);
+        System.out.printf("  win rate       %.2f%%%n", 100.0 * s.won / s.games);
+        System.out.printf("  moves/game     %.1f%n", (double) s.moves / s.games);
+        System.out.printf("  guesses/game   %.2f%n", (double) s.guesses / s.games);
+        System.out.printf("  us/deduction   %.2f%n", s.deduceNanos / 1e3 / s.deduceCalls);
+        System.out.printf("  us/move        %.2f%n", s.deduceNanos / 1e3 / s.moves);
+        System.out.printf("  games/second   %.1f%n", s.games / seconds);
+        return s;
+    }
+}
@@ -0,0 +1,149 @@
+package minesweeper.solver;
+
+import minesweeper.game.BoardView;
+import minesweeper.game.states.CellState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An independent part of the frontier: covered cells next to numbered cells, and the constraints of those numbered
+ * cells on them. Two covered cells are in the same component if a chain of numbered cells links them, so what is
+ * deduced on a component tells nothing about the others but through the total number of mines.
+ * <p>
+ * Components are equal if they have the same shape: the same constraints on the same cells relative to the first
+ * one, so the same pattern anywhere on the board can share what was computed on it.
+ */
+final class FrontierComponent {
+
+    private static final int[] di = new int[]{-1, -1, -1, 0, 1, 1, 1, 0};
+    private static final int[] dj = new int[]{-1, 0, 1, 1, 1, 0, -1, -1};
+
+    /**
+     * The covered cells of the component, in the order they are enumerated.
+     */
+    final int[] cells;
+    /**
+     * For each constraint, the mines it still needs.
+     */
+    final int[] remaining;
+    /**
+     * For each constraint, the positions in {@link #cells} of its covered cells.
+     */
+    final int[][] members;
+    private final int[] key;
+    private final int hash;
+
+    FrontierComponent(int[] cells, int[] remaining, int[][] members) {
+        this.cells = cells;
+        this.remaining = remaining;
+        this.members = members;
+        // relative cell offsets, then for each constraint its need and members
+        int size = cells.length + remaining.length;
+        for (int[] m : members)
+            size += m.length + 1;
+        key = new int[size];
+        int k = 0;
+        for (int cell : cells)
+            key[k++] = cell - cells[0];
+        for (int j = 0; j < remaining.length; j++) {
+            key[k++] = remaining[j] << 8 | members[j].length;
+            for (int m : members[j])
+                key[k++] = m;
+        }
+        hash = Arrays.hashCode(key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FrontierComponent && Arrays.equals(key, ((FrontierComponent) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Split the frontier of a board into its components, cells ordered so that the cells of a constraint are close
+     * in the enumeration. The work and the memory follow the frontier: the numbered cells seen are kept in a
+     * {@link PagedBitSet}, the positions of the covered cells in a map per component.
+     *
+     * @param board the board
+     * @return the components
+     */
+    static List<FrontierComponent> split(BoardView board) {
+        int rows = board.getRows(), cols = board.getCols();
+        // the constraints: numbered cells with covered neighbours
+        PagedBitSet seen = new PagedBitSet((long) rows * cols);
+        List<FrontierComponent> shapes = new ArrayList<>();
+        int[] stack = new int[16];
+        for (int start = board.nextFrontierCell(0); start >= 0; start = board.nextFrontierCell(start + 1)) {
+            if (seen.get(start) || board.getCellState(start / cols, start % cols).getValue() <= 0)
+                continue;
+            // flood over numbered cells sharing covered cells
+            List<Integer> constraints = new ArrayList<>();
+            List<Integer> cells = new ArrayList<>();
+            Map<Integer, Integer> index = new HashMap<>(); // position of a covered cell in the component
+            int top = 0;
+            stack[top++] = start;
+            seen.add(start);
+            while (top > 0) {
+                int key = stack[--top];
+                constraints.add(key);
+                for (int i = 0; i < di.length; i++) {
+                    int r = key / cols + di[i], c = key % cols + dj[i];
+                    if (r < 0 || r >= rows || c < 0 || c >= cols || board.getCellState(r, c) != CellState.COVERED)
+                        continue;
+                    int cell = r * cols + c;
+                    if (!index.containsKey(cell)) {
+                        index.put(cell, cells.size());
+                        cells.add(cell);
+                    }
+                    // the numbered cells around this covered cell are in the same component
+                    for (int k = 0; k < di.length; k++) {
+                        int rr = r + di[k], cc = c + dj[k];
+                        if (rr < 0 || rr >= rows || cc < 0 || cc >= cols)
+                            continue;
+                        int other = rr * cols + cc;
+                        if (!seen.get(other) && board.getCellState(rr, cc).getValue() > 0) {
+                            seen.add(other);
+                            if (top == stack.length)
+                                stack = Arrays.copyOf(stack, top * 2);
+                            stack[top++] = other;
+                        }
+                    }
+                }
+            }
+            if (cells.isEmpty())
+                continue;
+
+            int[] cellArray = cells.stream().mapToInt(Integer::intValue).toArray();
+            int[] remaining = new int[constraints.size()];
+            int[][] members = new int[constraints.size()][];
+            for (int j = 0; j < remaining.length; j++) {
+                int key = constraints.get(j);
+                int need = board.getCellState(key / cols, key % cols).getValue();
+                int[] m = new int[8];
+                int count = 0;
+                for (int i = 0; i < di.length; i++) {
+                    int r = key / cols + di[i], c = key % cols + dj[i];
+                    if (r < 0 || r >= rows || c < 0 || c >= cols)
+                        continue;
+                    CellState s = board.getCellState(r, c);
+                    if (s == CellState.FLAGGED)
+                        need--;
+                    else if (s == CellState.COVERED)
+                        m[count++] = index.get(r * cols + c);
+                }
+                remaining[j] = need;
+                members[j] = Arrays.copyOf(m, count);
+            }
+            shapes.add(new FrontierComponent(cellArray, remaining, members));
+        }
+        return shapes;
+    }
+}
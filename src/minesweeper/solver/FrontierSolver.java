@@ -0,0 +1,298 @@
+package minesweeper.solver;
+
+import minesweeper.game.BoardListener;
+import minesweeper.game.BoardView;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental deduction with the single-cell rules of the robot: a numbered cell whose count equals its flagged
+ * neighbours has only safe covered neighbours, and one whose count equals its flagged plus covered neighbours has
+ * only mines around.
+ * <p>
+ * Only a numbered cell next to a cell that changed can yield something new. The solver listens to the board and
+ * queues exactly those cells, so each deduction costs in proportion to what the last moves changed, not to the size
+ * of the board. The queue is a primitive ring buffer with a bitset to avoid queueing a cell twice; the bitset is
+ * allocated by pages as the frontier reaches them, so a board of millions of cells costs the part that is played.
+ * <p>
+ * When the single-cell rules are exhausted, the solver may compare the constraints of two numbered cells at most two
+ * rows and columns apart (the 1-1 and 1-2-1 patterns and the like). The covered neighbours of both cells are bitmasks
+ * of a 7x7 window centered on the first cell: if the first cell needs as many more mines than the second as it has
+ * covered cells the second does not see, those cells are all mines and the ones only the second sees are all safe.
+ */
+public class FrontierSolver implements Strategy, BoardListener {
+
+    private static final int[] di = new int[]{-1, -1, -1, 0, 1, 1, 1, 0};
+    private static final int[] dj = new int[]{-1, 0, 1, 1, 1, 0, -1, -1};
+
+    private BoardView board;
+    private int rows, cols;
+    /**
+     * Whether to apply the pair rules once the single-cell rules are exhausted.
+     */
+    private final boolean pairRules;
+    /**
+     * Where the next scan for pairs starts, so consecutive scans go round the frontier.
+     */
+    private int pairCursor;
+
+    /**
+     * Ring buffer of the cells to examine, its length is a power of two.
+     */
+    private int[] queue;
+    private int head, tail;
+    /**
+     * Bitset of the cells in the queue, paged so that a chunked board does not get a bit per cell.
+     */
+    private PagedBitSet queued;
+    /**
+     * Scratch buffer of the covered neighbours of the examined cell.
+     */
+    private final int[] covered = new int[8];
+
+    public FrontierSolver() {
+        this(true);
+    }
+
+    /**
+     * @param pairRules also compare the constraints of neighbouring numbered cells
+     */
+    public FrontierSolver(boolean pairRules) {
+        this.pairRules = pairRules;
+    }
+
+    /**
+     * Start listening to the board, and queue every frontier cell of the board as it is now.
+     */
+    @Override
+    public void start(BoardView view) {
+        if (view != board || queued == null) {
+            board = view;
+            rows = view.getRows();
+            cols = view.getCols();
+            queue = new int[Integer.highestOneBit(4 * Math.max(rows, cols)) << 1];
+            queued = new PagedBitSet((long) rows * cols);
+        }
+        board.addBoardListener(this);
+        boardChanged();
+    }
+
+    /**
+     * Stop listening to the board.
+     */
+    @Override
+    public void stop(BoardView view) {
+        view.removeBoardListener(this);
+    }
+
+    /**
+     * Examine the queued cells until the queue is empty; if that tells nothing, look for a pair of constraints
+     * telling something. Applying the moves queues the cells they change for the next call.
+     *
+     * @return the moves deduced
+     */
+    @Override
+    public List<Move> deduce(BoardView view, int minesLeft) {
+        List<Move> moves = new ArrayList<>();
+        while (head != tail) {
+            int key = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            queued.remove(key);
+            examine(board, key / cols, key % cols, covered, moves);
+        }
+        if (moves.isEmpty() && pairRules && board.getGameState() == GameState.ONGOING)
+            solvePairs(moves);
+        return moves;
+    }
+
+    /**
+     * Apply the single-cell rules on a numbered cell.
+     *
+     * @param covered scratch buffer of 8 cells
+     */
+    static void examine(BoardView board, int row, int col, int[] covered, List<Move> moves) {
+        int rows = board.getRows(), cols = board.getCols();
+        int minesCount = board.getCellState(row, col).getValue();
+        if (minesCount <= 0)
+            return;
+
+        int flaggedCell = 0, n = 0;
+        for (int i = 0; i < di.length; i++) {
+            int _r = row + di[i];
+            int _c = col + dj[i];
+            if (_r >= 0 && _r < rows && _c >= 0 && _c < cols) {
+                CellState s = board.getCellState(_r, _c);
+                if (s == CellState.FLAGGED)
+                    flaggedCell++;
+                else if (s == CellState.COVERED)
+                    covered[n++] = _r * cols + _c;
+            }
+        }
+        if (minesCount == flaggedCell + n) {
+            // every covered neighbour is a mine
+            for (int i = 0; i < n; i++)
+                moves.add(Move.flag(covered[i] / cols, covered[i] % cols));
+        } else if (minesCount == flaggedCell) {
+            // every covered neighbour is safe
+            for (int i = 0; i < n; i++)
+                moves.add(Move.uncover(covered[i] / cols, covered[i] % cols));
+        }
+    }
+
+    /**
+     * Go once round the frontier, from where the last scan stopped, for a pair of numbered cells whose constraints
+     * tell something. Stops at the first pair that deduces a move, the moves queue cells for the single-cell rules.
+     */
+    private void solvePairs(List<Move> moves) {
+        // from the cursor to the end, then from the start to the cursor
+        for (int pass = 0; pass < 2; pass++) {
+            int from = pass == 0 ? pairCursor : 0;
+            int to = pass == 0 ? rows * cols : pairCursor;
+            for (int key = board.nextFrontierCell(from); key >= 0 && key < to; key = board.nextFrontierCell(key + 1)) {
+                if (pairsOf(board, key / cols, key % cols, moves)) {
+                    pairCursor = key;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare the constraint of a numbered cell A with those of the numbered cells B at most two rows and columns
+     * away, and take the moves of the first comparison that tells something.
+     *
+     * @return true if moves were deduced
+     */
+    static boolean pairsOf(BoardView board, int row, int col, List<Move> moves) {
+        int rows = board.getRows(), cols = board.getCols();
+        int rA = remaining(board, row, col);
+        if (rA < 0)
+            return false;
+        long uA = unknowns(board, row, col, row, col);
+        if (uA == 0)
+            return false;
+        for (int dr = -2; dr <= 2; dr++) {
+            for (int dc = -2; dc <= 2; dc++) {
+                int _r = row + dr;
+                int _c = col + dc;
+                if ((dr == 0 && dc == 0) || _r < 0 || _r >= rows || _c < 0 || _c >= cols)
+                    continue;
+                int rB = remaining(board, _r, _c);
+                if (rB < 0)
+                    continue;
+                long uB = unknowns(board, _r, _c, row, col);
+                if ((uA & uB) == 0)
+                    continue; // independent constraints
+                long onlyA = uA & ~uB;
+                long onlyB = uB & ~uA;
+                // A needs rA - rB mines more than B, and only onlyA can hold them
+                if ((onlyA | onlyB) != 0 && rA - rB == Long.bitCount(onlyA)) {
+                    addWindow(onlyA, row, col, true, moves);
+                    addWindow(onlyB, row, col, false, moves);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The number of mines around a numbered cell that are not flagged yet.
+     *
+     * @return the remaining mines, -1 if the cell is not a numbered cell
+     */
+    private static int remaining(BoardView board, int row, int col) {
+        int rows = board.getRows(), cols = board.getCols();
+        int minesCount = board.getCellState(row, col).getValue();
+        if (minesCount <= 0)
+            return -1;
+        for (int i = 0; i < di.length; i++) {
+            int _r = row + di[i];
+            int _c = col + dj[i];
+            if (_r >= 0 && _r < rows && _c >= 0 && _c < cols && board.getCellState(_r, _c) == CellState.FLAGGED)
+                minesCount--;
+        }
+        return minesCount;
+    }
+
+    /**
+     * The covered neighbours of (row, col) as a bitmask of the 7x7 window centered on (centerRow, centerCol), bit
+     * {@code (r - centerRow + 3) * 7 + (c - centerCol + 3)} for cell (r, c).
+     */
+    private static long unknowns(BoardView board, int row, int col, int centerRow, int centerCol) {
+        int rows = board.getRows(), cols = board.getCols();
+        long mask = 0L;
+        for (int i = 0; i < di.length; i++) {
+            int _r = row + di[i];
+            int _c = col + dj[i];
+            if (_r >= 0 && _r < rows && _c >= 0 && _c < cols && board.getCellState(_r, _c) == CellState.COVERED)
+                mask |= 1L << ((_r - centerRow + 3) * 7 + (_c - centerCol + 3));
+        }
+        return mask;
+    }
+
+    /**
+     * Flag or uncover the cells of a 7x7 window bitmask.
+     */
+    private static void addWindow(long mask, int centerRow, int centerCol, boolean mines, List<Move> moves) {
+        for (; mask != 0; mask &= mask - 1) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            int _r = centerRow + bit / 7 - 3;
+            int _c = centerCol + bit % 7 - 3;
+            moves.add(mines ? Move.flag(_r, _c) : Move.uncover(_r, _c));
+        }
+    }
+
+    /**
+     * A cell changed, so did what its numbered neighbours (and itself, if just uncovered) can tell.
+     */
+    @Override
+    public void cellChanged(int row, int col) {
+        enqueue(row, col);
+        for (int i = 0; i < di.length; i++) {
+            int _r = row + di[i];
+            int _c = col + dj[i];
+            if (_r >= 0 && _r < rows && _c >= 0 && _c < cols)
+                enqueue(_r, _c);
+        }
+    }
+
+    /**
+     * Start over from the frontier of the board.
+     */
+    @Override
+    public void boardChanged() {
+        pairCursor = 0;
+        while (head != tail) {
+            int key = queue[head];
+            queued.remove(key);
+            head = (head + 1) & (queue.length - 1);
+        }
+        if (board.getGameState() != GameState.ONGOING)
+            return;
+        for (int key = board.nextFrontierCell(0); key >= 0; key = board.nextFrontierCell(key + 1))
+            enqueue(key / cols, key % cols);
+    }
+
+    private void enqueue(int row, int col) {
+        if (board.getCellState(row, col).getValue() <= 0)
+            return; // only numbered cells tell something
+        int key = row * cols + col;
+        if (!queued.add(key))
+            return;
+        queue[tail] = key;
+        tail = (tail + 1) & (queue.length - 1);
+        if (tail == head) { // full, grow and unwrap
+            int[] grown = new int[queue.length << 1];
+            int n = queue.length - head;
+            System.arraycopy(queue, head, grown, 0, n);
+            System.arraycopy(queue, 0, grown, n, head);
+            head = 0;
+            tail = queue.length;
+            queue = grown;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package minesweeper.solver;
+
+import minesweeper.game.BoardView;
+import minesweeper.game.states.GameState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deduction by Gaussian elimination over the frontier. Each numbered cell is a linear equation on its covered
+ * neighbours, a variable being 1 for a mine and 0 for a safe cell. The equations of each {@link FrontierComponent}
+ * are reduced to row echelon form with integer arithmetic; in a row whose right-hand side equals the sum of its
+ * positive coefficients, the cells with a positive coefficient are mines and the ones with a negative coefficient
+ * are safe, and the converse when it equals the sum of its negative coefficients.
+ * <p>
+ * It finds what the single-cell and pair rules find and more, as chains of constraints of any length are combined,
+ * but it starts from the whole frontier on every call.
+ */
+public class GaussianSolver implements Strategy {
+
+    /**
+     * Components with more cells or constraints are not reduced, only their equations as they are are looked at.
+     */
+    static final int MAX_REDUCED = 256;
+
+    @Override
+    public List<Move> deduce(BoardView view, int minesLeft) {
+        List<Move> moves = new ArrayList<>();
+        if (view.getGameState() != GameState.ONGOING)
+            return moves;
+        List<FrontierComponent> components = FrontierComponent.split(view);
+        // with every covered cell on a single component, the number of mines left is one more equation
+        boolean global = components.size() == 1 && components.get(0).cells.length == covered(view, minesLeft);
+        for (FrontierComponent component : components)
+            solve(component, global ? minesLeft : -1, view.getCols(), moves);
+        return moves;
+    }
+
+    /**
+     * The number of covered cells that are not flagged, from the counters of the board: the flags are the mines of
+     * the board minus the mines left.
+     */
+    private static int covered(BoardView view, int minesLeft) {
+        return view.getNCovered() - (view.getNMines() - minesLeft);
+    }
+
+    /**
+     * Reduce the equations of a component and collect the cells they decide.
+     *
+     * @param minesLeft the total of the cells of the component, -1 if unknown
+     */
+    private static void solve(FrontierComponent component, int minesLeft, int cols, List<Move> moves) {
+        int n = component.cells.length;
+        int m = component.remaining.length + (minesLeft >= 0 ? 1 : 0);
+        // row i: coefficients of the n cells, then the right-hand side
+        long[][] a = new long[m][n + 1];
+        for (int j = 0; j < component.remaining.length; j++) {
+            for (int c : component.members[j])
+                a[j][c] = 1;
+            a[j][n] = component.remaining[j];
+        }
+        if (minesLeft >= 0) {
+            for (int c = 0; c < n; c++)
+                a[m - 1][c] = 1;
+            a[m - 1][n] = minesLeft;
+        }
+
+        boolean[] decided = new boolean[n];
+        // the equations as they are: the single-cell rules
+        for (long[] row : a)
+            decide(row, component.cells, cols, decided, moves);
+        if (n > MAX_REDUCED || m > MAX_REDUCED)
+            return;
+        reduce(a, n);
+        for (long[] row : a)
+            decide(row, component.cells, cols, decided, moves);
+    }
+
+    /**
+     * Reduce the rows to row echelon form, fraction free: a row is eliminated by a multiple of the pivot row, then
+     * divided by the gcd of its coefficients to keep them small. Stops early, with every row still a valid
+     * equation, if a coefficient would overflow.
+     */
+    static void reduce(long[][] a, int n) {
+        long[] next = new long[n + 1];
+        int rank = 0;
+        for (int col = 0; col < n && rank < a.length; col++) {
+            int pivot = rank;
+            while (pivot < a.length && a[pivot][col] == 0)
+                pivot++;
+            if (pivot == a.length)
+                continue;
+            long[] tmp = a[pivot];
+            a[pivot] = a[rank];
+            a[rank] = tmp;
+            for (int i = 0; i < a.length; i++) {
+                if (i == rank || a[i][col] == 0)
+                    continue;
+                long f = a[i][col], g = a[rank][col];
+                long gcd = 0;
+                try {
+                    for (int k = 0; k <= n; k++) {
+                        next[k] = Math.subtractExact(Math.multiplyExact(a[i][k], g),
+                                Math.multiplyExact(a[rank][k], f));
+                        gcd = gcd(gcd, Math.abs(next[k]));
+                    }
+                } catch (ArithmeticException overflow) {
+                    return;
+                }
+                for (int k = 0; k <= n; k++)
+                    a[i][k] = gcd > 1 ? next[k] / gcd : next[k];
+            }
+            rank++;
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Collect the cells an equation decides: all of them if its right-hand side is at either end of the range of
+     * its left-hand side.
+     */
+    private static void decide(long[] row, int[] cells, int cols, boolean[] decided, List<Move> moves) {
+        int n = cells.length;
+        long max = 0, min = 0;
+        try {
+            for (int c = 0; c < n; c++) {
+                if (row[c] > 0)
+                    max = Math.addExact(max, row[c]);
+                else
+                    min = Math.addExact(min, row[c]);
+            }
+        } catch (ArithmeticException overflow) {
+            return;
+        }
+        long rhs = row[n];
+        if (max == min || (rhs != max && rhs != min))
+            return;
+        for (int c = 0; c < n; c++) {
+            if (row[c] == 0 || decided[c])
+                continue;
+            // at the top of the range, positive coefficients are mines; at the bottom, negative ones are
+            boolean mine = (row[c] > 0) == (rhs == max);
+            decided[c] = true;
+            int key = cells[c];
+            moves.add(mine ? Move.flag(key / cols, key % cols) : Move.uncover(key / cols, key % cols));
+        }
+    }
+}
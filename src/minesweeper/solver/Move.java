@@ -0,0 +1,66 @@
+package minesweeper.solver;
+
+/**
+ * A move deduced by a {@link Strategy}: uncover a cell, or flag it.
+ */
+public final class Move {
+
+    public enum Type {
+        /**
+         * The cell cannot be a mine.
+         */
+        UNCOVER,
+        /**
+         * The cell must be a mine.
+         */
+        FLAG
+    }
+
+    private final Type type;
+    private final int row;
+    private final int col;
+
+    private Move(Type type, int row, int col) {
+        this.type = type;
+        this.row = row;
+        this.col = col;
+    }
+
+    public static Move uncover(int row, int col) {
+        return new Move(Type.UNCOVER, row, col);
+    }
+
+    public static Move flag(int row, int col) {
+        return new Move(Type.FLAG, row, col);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Move))
+            return false;
+        Move m = (Move) o;
+        return type == m.type && row == m.row && col == m.col;
+    }
+
+    @Override
+    public int hashCode() {
+        return (type.ordinal() * 31 + row) * 31 + col;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + row + ", " + col + ")";
+    }
+}
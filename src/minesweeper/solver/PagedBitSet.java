@@ -0,0 +1,55 @@
+package minesweeper.solver;
+
+/**
+ * A bitset over the cells of a board, {@code row * cols + col}, by pages of {@code 1 << PAGE_SHIFT} cells allocated
+ * the first time a cell of the page is set: its memory follows the cells touched, not the size of the board, which
+ * may be a chunked one of billions of cells.
+ */
+final class PagedBitSet {
+    /**
+     * The cells of a page, 32 KB.
+     */
+    static final int PAGE_SHIFT = 18;
+
+    private final long[][] pages;
+
+    /**
+     * @param cells the number of cells of the board
+     */
+    PagedBitSet(long cells) {
+        pages = new long[(int) ((cells >>> PAGE_SHIFT) + 1)][];
+    }
+
+    boolean get(int key) {
+        long[] page = pages[key >>> PAGE_SHIFT];
+        return page != null && (page[word(key)] & (1L << key)) != 0;
+    }
+
+    /**
+     * Set the bit of a cell.
+     *
+     * @return false if it was set already
+     */
+    boolean add(int key) {
+        long[] page = pages[key >>> PAGE_SHIFT];
+        if (page == null)
+            page = pages[key >>> PAGE_SHIFT] = new long[1 << (PAGE_SHIFT - 6)];
+        if ((page[word(key)] & (1L << key)) != 0)
+            return false;
+        page[word(key)] |= 1L << key;
+        return true;
+    }
+
+    void remove(int key) {
+        long[] page = pages[key >>> PAGE_SHIFT];
+        if (page != null)
+            page[word(key)] &= ~(1L << key);
+    }
+
+    /**
+     * The word of a cell in its page.
+     */
+    private static int word(int key) {
+        return (key >>> 6) & ((1 << (PAGE_SHIFT - 6)) - 1);
+    }
+}
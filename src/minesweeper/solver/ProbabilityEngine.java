@@ -0,0 +1,436 @@
+package minesweeper.solver;
+
+import minesweeper.game.BoardView;
+import minesweeper.game.states.CellState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Compute the probability of every covered cell to be a mine, to guess the safest cell when nothing can be deduced.
+ * <p>
+ * The covered cells next to a numbered cell (the frontier) are split into independent components: two cells are in
+ * the same component if a chain of numbered cells links them. The solutions of each component are enumerated by
+ * backtracking and counted by number of mines, the components are then combined with the number of mines left: a
+ * total of {@code m} mines on the frontier is weighted by the {@code C(I, M - m)} ways to place the other mines on
+ * the {@code I} covered cells away from the frontier, which all share the same probability.
+ * <p>
+ * Only the frontier cells get a probability of their own, the interior cells share one value and their number comes
+ * from the counters of the board: a guess costs the size of the frontier, not of the board.
+ * <p>
+ * Components are enumerated in parallel when there are several large ones, and the results are memoised by the
+ * shape of the component, so a component left untouched by the last moves is not enumerated again. A component whose
+ * enumeration exceeds {@link #NODE_BUDGET} falls back to an approximation from its local constraints.
+ */
+public class ProbabilityEngine {
+
+    /**
+     * The maximum number of search nodes to enumerate a component, beyond it the component is approximated.
+     */
+    static final int NODE_BUDGET = 1 << 20;
+    /**
+     * Enumerate in parallel only when the components have this many cells in total.
+     */
+    private static final int PARALLEL_THRESHOLD = 64;
+    /**
+     * The number of component results kept in the memo.
+     */
+    private static final int MEMO_SIZE = 4096;
+
+    private final BoardView board;
+    private final int rows, cols;
+
+    /**
+     * Component results by shape, least recently used first.
+     */
+    private final Map<FrontierComponent, Result> memo = new LinkedHashMap<FrontierComponent, Result>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FrontierComponent, Result> eldest) {
+            return size() > MEMO_SIZE;
+        }
+    };
+
+    /**
+     * The frontier cells after the last {@link #compute}, sorted, and the probability of each.
+     */
+    private int[] frontierKeys = new int[0];
+    private double[] frontierProbability = new double[0];
+    /**
+     * The probability of each covered cell away from the frontier, and their number.
+     */
+    private double interiorProbability;
+    private int interior;
+    /**
+     * The number of components approximated during the last {@link #compute}.
+     */
+    private int approximated;
+
+    public ProbabilityEngine(BoardView board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+    }
+
+    /**
+     * The solutions of a component counted by number of mines, normalised to sum to 1.
+     */
+    static final class Result {
+        /**
+         * weight[k]: the share of the solutions with k mines.
+         */
+        final double[] weight;
+        /**
+         * cellWeight[i][k]: the share of the solutions with k mines where cell i is a mine.
+         */
+        final double[][] cellWeight;
+        /**
+         * Whether the result is an approximation.
+         */
+        final boolean approximate;
+
+        Result(double[] weight, double[][] cellWeight, boolean approximate) {
+            this.weight = weight;
+            this.cellWeight = cellWeight;
+            this.approximate = approximate;
+        }
+    }
+
+    /**
+     * Compute the probability of every covered cell to be a mine.
+     *
+     * @param minesLeft the number of mines not flagged yet, the number of mines of the board minus its flags;
+     *                  flags are assumed to be right
+     */
+    public void compute(int minesLeft) {
+        approximated = 0;
+
+        List<FrontierComponent> shapes = FrontierComponent.split(board);
+        int frontierCells = 0;
+        for (FrontierComponent s : shapes)
+            frontierCells += s.cells.length;
+        // the covered cells are the flagged ones, the frontier and the interior
+        int flagged = board.getNMines() - minesLeft;
+        interior = Math.max(0, board.getNCovered() - flagged - frontierCells);
+        double[] probability = new double[frontierCells];
+
+        Result[] results = enumerate(shapes, frontierCells);
+        for (Result r : results)
+            if (r.approximate)
+                approximated++;
+
+        // prefix[i]: distribution of the mines of the components before i, suffix[i]: from i on
+        int n = results.length;
+        double[][] prefix = new double[n + 1][];
+        double[][] suffix = new double[n + 1][];
+        prefix[0] = new double[]{1};
+        suffix[n] = new double[]{1};
+        for (int i = 0; i < n; i++)
+            prefix[i + 1] = convolve(prefix[i], results[i].weight);
+        for (int i = n - 1; i >= 0; i--)
+            suffix[i] = convolve(results[i].weight, suffix[i + 1]);
+        double[] total = prefix[n];
+
+        // binomial weight of placing the rest of the mines on the interior cells
+        double[] rest = restWeights(minesLeft, interior, total.length - 1);
+        double z = 0, interiorMines = 0;
+        for (int m = 0; m < total.length; m++) {
+            z += total[m] * rest[m];
+            if (interior > 0)
+                interiorMines += total[m] * rest[m] * (minesLeft - m);
+        }
+
+        if (z <= 0) { // inconsistent, e.g. a wrong flag: fall back to the local estimates
+            for (int i = 0, at = 0; i < n; at += shapes.get(i).cells.length, i++)
+                for (int c = 0; c < shapes.get(i).cells.length; c++)
+                    probability[at + c] = localEstimate(shapes.get(i), c);
+            index(shapes, probability);
+            interiorProbability = interior > 0 ? Math.max(0, Math.min(1,
+                    (double) (minesLeft - frontierCells / 2) / interior)) : 0;
+            return;
+        }
+
+        for (int i = 0, at = 0; i < n; at += shapes.get(i).cells.length, i++) {
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            Result r = results[i];
+            int[] cells = shapes.get(i).cells;
+            for (int c = 0; c < cells.length; c++) {
+                double p = 0;
+                for (int k = 0; k < r.cellWeight[c].length; k++) {
+                    if (r.cellWeight[c][k] == 0)
+                        continue;
+                    double w = 0;
+                    for (int o = 0; o < others.length && k + o < rest.length; o++)
+                        w += others[o] * rest[k + o];
+                    p += r.cellWeight[c][k] * w;
+                }
+                probability[at + c] = Math.min(1, p / z);
+            }
+        }
+        index(shapes, probability);
+        interiorProbability = interior > 0 ? interiorMines / z / interior : 0;
+    }
+
+    /**
+     * Sort the frontier cells, in the order of the components, with their probabilities for the lookups.
+     */
+    private void index(List<FrontierComponent> shapes, double[] probability) {
+        long[] order = new long[probability.length];
+        int k = 0;
+        for (FrontierComponent s : shapes)
+            for (int cell : s.cells) {
+                order[k] = (long) cell << 32 | k;
+                k++;
+            }
+        Arrays.sort(order);
+        frontierKeys = new int[order.length];
+        frontierProbability = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            frontierKeys[i] = (int) (order[i] >>> 32);
+            frontierProbability[i] = probability[(int) order[i]];
+        }
+    }
+
+    /**
+     * rest[m] is proportional to C(interior, minesLeft - m), the number of ways to place the mines that are not on
+     * the frontier, computed in log scale relative to its largest term to stay within double range. As only the
+     * ratios of the terms matter, the terms step from 0 by {@code C(n, j - 1) / C(n, j) = j / (n - j + 1)}, in the
+     * number of frontier mines and not of the mines left.
+     */
+    private static double[] restWeights(int minesLeft, int interior, int maxFrontierMines) {
+        double[] log = new double[maxFrontierMines + 1];
+        Arrays.fill(log, Double.NEGATIVE_INFINITY);
+        int jMax = Math.min(minesLeft, interior), jMin = Math.max(0, minesLeft - maxFrontierMines);
+        double[] rest = new double[maxFrontierMines + 1];
+        if (jMin > jMax)
+            return rest;
+        double l = 0;
+        log[minesLeft - jMax] = l;
+        for (int j = jMax; j > jMin; j--) {
+            l += Math.log((double) j / (interior - j + 1));
+            log[minesLeft - j + 1] = l;
+        }
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : log)
+            max = Math.max(max, v);
+        for (int m = 0; m <= maxFrontierMines; m++)
+            rest[m] = Math.exp(log[m] - max);
+        return rest;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] c = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0)
+                continue;
+            for (int j = 0; j < b.length; j++)
+                c[i + j] += a[i] * b[j];
+        }
+        return c;
+    }
+
+    /**
+     * Enumerate the components, taking what is memoised, in parallel if they are big enough.
+     */
+    private Result[] enumerate(List<FrontierComponent> shapes, int frontierCells) {
+        Result[] results = new Result[shapes.size()];
+        List<Integer> todo = new ArrayList<>();
+        synchronized (memo) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = memo.get(shapes.get(i));
+                if (results[i] == null)
+                    todo.add(i);
+            }
+        }
+        IntStream indices = todo.stream().mapToInt(Integer::intValue);
+        if (todo.size() > 1 && frontierCells >= PARALLEL_THRESHOLD)
+            indices = indices.parallel();
+        indices.forEach(i -> results[i] = enumerate(shapes.get(i)));
+        synchronized (memo) {
+            for (int i : todo)
+                memo.put(shapes.get(i), results[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Count the solutions of one component by backtracking over its cells, checking every constraint of a cell as
+     * soon as it is assigned.
+     */
+    Result enumerate(FrontierComponent s) {
+        int n = s.cells.length;
+        int[][] constraintsOf = constraintsOf(s);
+        int[] mines = new int[s.remaining.length];
+        int[] unassigned = new int[s.remaining.length];
+        for (int j = 0; j < unassigned.length; j++)
+            unassigned[j] = s.members[j].length;
+
+        double[] weight = new double[n + 1];
+        double[][] cellWeight = new double[n][n + 1];
+        boolean[] value = new boolean[n];
+        int[] choice = new int[n]; // 0: try safe next, 1: try mine next, 2: done
+        long nodes = 0;
+        int depth = 0, placed = 0;
+        while (depth >= 0) {
+            if (depth == n) { // a solution
+                weight[placed]++;
+                for (int c = 0; c < n; c++)
+                    if (value[c])
+                        cellWeight[c][placed]++;
+                depth--;
+                continue;
+            }
+            if (choice[depth] > 0) // undo the previous choice of this cell
+                assign(depth, value[depth], -1, constraintsOf, mines, unassigned);
+            if (value[depth] && choice[depth] > 0)
+                placed--;
+            if (choice[depth] == 2) {
+                choice[depth] = 0;
+                depth--;
+                continue;
+            }
+            boolean mine = choice[depth] == 1;
+            choice[depth]++;
+            if (++nodes > NODE_BUDGET)
+                return approximate(s);
+            value[depth] = mine;
+            assign(depth, mine, 1, constraintsOf, mines, unassigned);
+            if (mine)
+                placed++;
+            if (consistent(depth, constraintsOf, mines, unassigned, s.remaining))
+                depth++;
+        }
+
+        double total = 0;
+        for (double w : weight)
+            total += w;
+        if (total == 0) // no solution, the board contradicts itself
+            return approximate(s);
+        for (int k = 0; k <= n; k++) {
+            weight[k] /= total;
+            for (int c = 0; c < n; c++)
+                cellWeight[c][k] /= total;
+        }
+        return new Result(weight, cellWeight, false);
+    }
+
+    private static void assign(int cell, boolean mine, int sign, int[][] constraintsOf, int[] mines, int[] unassigned) {
+        for (int j : constraintsOf[cell]) {
+            unassigned[j] -= sign;
+            if (mine)
+                mines[j] += sign;
+        }
+    }
+
+    private static boolean consistent(int cell, int[][] constraintsOf, int[] mines, int[] unassigned, int[] remaining) {
+        for (int j : constraintsOf[cell])
+            if (mines[j] > remaining[j] || mines[j] + unassigned[j] < remaining[j])
+                return false;
+        return true;
+    }
+
+    private static int[][] constraintsOf(FrontierComponent s) {
+        int[] count = new int[s.cells.length];
+        for (int[] m : s.members)
+            for (int c : m)
+                count[c]++;
+        int[][] of = new int[s.cells.length][];
+        for (int c = 0; c < of.length; c++)
+            of[c] = new int[count[c]];
+        Arrays.fill(count, 0);
+        for (int j = 0; j < s.members.length; j++)
+            for (int c : s.members[j])
+                of[c][count[c]++] = j;
+        return of;
+    }
+
+    /**
+     * Approximate a component too large to enumerate: each cell takes the highest density of its constraints, and
+     * the component holds the rounded sum of them.
+     */
+    private Result approximate(FrontierComponent s) {
+        int n = s.cells.length;
+        double expected = 0;
+        double[] p = new double[n];
+        for (int c = 0; c < n; c++) {
+            p[c] = localEstimate(s, c);
+            expected += p[c];
+        }
+        int k = (int) Math.min(n, Math.round(expected));
+        double[] weight = new double[n + 1];
+        weight[k] = 1;
+        double[][] cellWeight = new double[n][n + 1];
+        for (int c = 0; c < n; c++)
+            cellWeight[c][k] = expected > 0 ? Math.min(1, p[c] * k / expected) : 0;
+        return new Result(weight, cellWeight, true);
+    }
+
+    private static double localEstimate(FrontierComponent s, int cell) {
+        double p = 0;
+        for (int j = 0; j < s.members.length; j++)
+            for (int c : s.members[j])
+                if (c == cell)
+                    p = Math.max(p, (double) s.remaining[j] / s.members[j].length);
+        return p;
+    }
+
+    /**
+     * The probability of a cell to be a mine, as of the last {@link #compute}.
+     *
+     * @param row row index
+     * @param col column index
+     * @return the probability, NaN if the cell was not covered
+     */
+    public double getProbability(int row, int col) {
+        int i = Arrays.binarySearch(frontierKeys, row * cols + col);
+        if (i >= 0)
+            return frontierProbability[i];
+        return board.getCellState(row, col) == CellState.COVERED ? interiorProbability : Double.NaN;
+    }
+
+    /**
+     * The covered cell least likely to be a mine as of the last {@link #compute}; among equals, the first one. The
+     * frontier cells are compared, then the first interior cell is looked for only if it may be safer, up to the
+     * best frontier cell.
+     *
+     * @return its index {@code row * cols + col}, -1 if no cell is covered
+     */
+    public int safestCell() {
+        int best = -1;
+        for (int i = 0; i < frontierKeys.length; i++)
+            if (best < 0 || frontierProbability[i] < frontierProbability[best])
+                best = i;
+        if (interior == 0 || (best >= 0 && frontierProbability[best] < interiorProbability))
+            return best < 0 ? -1 : frontierKeys[best];
+        int bound = best < 0 || frontierProbability[best] > interiorProbability ? rows * cols : frontierKeys[best];
+        int key = firstInterior(bound);
+        return key >= 0 ? key : best < 0 ? -1 : frontierKeys[best];
+    }
+
+    /**
+     * The first covered cell away from the frontier, before a bound.
+     *
+     * @return its index, -1 if there is none
+     */
+    private int firstInterior(int bound) {
+        int next = 0; // the next frontier cell not before key
+        for (int key = 0; key < bound; key++) {
+            while (next < frontierKeys.length && frontierKeys[next] < key)
+                next++;
+            if ((next == frontierKeys.length || frontierKeys[next] != key)
+                    && board.getCellState(key / cols, key % cols) == CellState.COVERED)
+                return key;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of components approximated during the last {@link #compute}
+     */
+    public int getApproximated() {
+        return approximated;
+    }
+}
@@ -0,0 +1,25 @@
+package minesweeper.solver;
+
+/**
+ * Callbacks of a {@link RobotPlayer}, so a view can follow a robot playing. Every method defaults to doing nothing,
+ * a headless robot needs no listener at all.
+ */
+public interface RobotListener {
+    /**
+     * A move has been applied on the board.
+     */
+    default void moved() {
+    }
+
+    /**
+     * A round of deduction is over.
+     */
+    default void stepped() {
+    }
+
+    /**
+     * Nothing can be deduced any more, the robot is about to guess.
+     */
+    default void guessing() {
+    }
+}
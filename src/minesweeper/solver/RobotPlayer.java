@@ -0,0 +1,228 @@
+package minesweeper.solver;
+
+import minesweeper.game.Board;
+import minesweeper.game.BoardView;
+import minesweeper.game.GameEngine;
+import minesweeper.game.MoveResult;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The play logic of the robot, on a headless {@link GameEngine}. It flags the cells that must be mines, uncovers the
+ * cells that cannot be, and tries a covered cell when stuck: the one least likely to be a mine according to a
+ * {@link ProbabilityEngine}, or a random one. It neither pauses nor repaints, a {@link RobotListener} may do it.
+ * <p>
+ * The probabilities take a double per cell, the robot guesses at random on a board larger than a {@link Board}, a
+ * chunked one.
+ * <p>
+ * The deductions are made by a {@link Strategy}, a {@link FrontierSolver} with the pair rules by default.
+ */
+public class RobotPlayer {
+
+    private static final int ROBOT_TAKEOVER_THRESHOLD = 10;
+
+    private final GameEngine engine;
+    private final BoardView board;
+    private final int rows, cols;
+    private final RandomGenerator random;
+    private RobotListener listener = new RobotListener() {
+    };
+    private final Strategy strategy;
+    /**
+     * Chooses the guesses, null to guess at random.
+     */
+    private final ProbabilityEngine probabilities;
+
+    /**
+     * The number of guesses of the current game, a cell known to be safe does not count.
+     */
+    private int guesses;
+    /**
+     * The time spent deducing in the current game, and the number of calls of the strategy.
+     */
+    private long deduceNanos;
+    private int deduceCalls;
+
+    public RobotPlayer(GameEngine engine, RandomGenerator random) {
+        this(engine, random, true, true);
+    }
+
+    /**
+     * @param engine    the engine to play on
+     * @param random    the source of the random tries
+     * @param pairRules also deduce from pairs of neighbouring numbered cells, see {@link FrontierSolver}
+     * @param safest    guess the cell least likely to be a mine instead of a random one
+     */
+    public RobotPlayer(GameEngine engine, RandomGenerator random, boolean pairRules, boolean safest) {
+        this(engine, random, new FrontierSolver(pairRules), safest);
+    }
+
+    /**
+     * @param engine   the engine to play on
+     * @param random   the source of the random tries
+     * @param strategy deduces the certain moves
+     * @param safest   guess the cell least likely to be a mine instead of a random one
+     */
+    public RobotPlayer(GameEngine engine, RandomGenerator random, Strategy strategy, boolean safest) {
+        this.engine = engine;
+        this.board = engine.getBoard();
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.random = random;
+        this.strategy = strategy;
+        boolean small = (long) rows * cols <= (long) Board.MAX_N * Board.MAX_N;
+        probabilities = safest && small ? new ProbabilityEngine(board) : null;
+    }
+
+    public void setListener(RobotListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Play the current game of the engine to its end.
+     *
+     * @return won or lost
+     */
+    public GameState play() {
+        strategy.start(board);
+        try {
+            return playToEnd();
+        } finally {
+            strategy.stop(board);
+        }
+    }
+
+    private GameState playToEnd() {
+        guesses = 0;
+        deduceNanos = 0;
+        deduceCalls = 0;
+        // random clicks until the robot has something to start with; the probabilities only need the first one
+        int takeover = probabilities != null ? 0 : ROBOT_TAKEOVER_THRESHOLD;
+        while (!engine.isFinished() && rows * cols - board.getNCovered() <= takeover) {
+            int randomKey = random.nextInt(rows * cols);
+            if (board.getCellState(randomKey / cols, randomKey % cols) == CellState.COVERED) {
+                guesses++;
+                unCoverCell(randomKey / cols, randomKey % cols);
+            }
+        }
+
+        while (!engine.isFinished()) {
+            int pre_solve = engine.getMoves();
+            // flag the cells certain mines and uncover the cells certain not mine, until nothing more is certain
+            while (!engine.isFinished() && deduce() > 0) {
+                // deduce again from what the moves changed
+            }
+            listener.stepped();
+            // the robot is stuck, try a cell
+            if (pre_solve == engine.getMoves() && !engine.isFinished()) {
+                listener.guessing();
+                if (probabilities != null)
+                    safest_try();
+                else
+                    random_try();
+            }
+        }
+        return engine.getGameState();
+    }
+
+    /**
+     * Ask the strategy for the certain moves and apply them. A move on a cell that is no longer covered, e.g. a cell
+     * deduced twice, is skipped.
+     *
+     * @return the number of moves applied
+     */
+    private int deduce() {
+        long start = System.nanoTime();
+        List<Move> moves = strategy.deduce(board, engine.getMinesLeft());
+        deduceNanos += System.nanoTime() - start;
+        deduceCalls++;
+
+        int applied = 0;
+        for (Move move : moves) {
+            if (engine.isFinished())
+                break;
+            if (board.getCellState(move.getRow(), move.getCol()) != CellState.COVERED)
+                continue;
+            boolean done = move.getType() == Move.Type.FLAG
+                    ? flagCell(move.getRow(), move.getCol())
+                    : unCoverCell(move.getRow(), move.getCol());
+            if (done)
+                applied++;
+        }
+        return applied;
+    }
+
+    public boolean unCoverCell(int row, int col) {
+        MoveResult result = engine.uncover(row, col);
+        if (result.isApplied())
+            listener.moved();
+        return result.isApplied();
+    }
+
+    public boolean random_try() {
+        // this function performs random try on a covered cell
+        // this strategy works well in (60,400)
+        while (!engine.isFinished()) {
+            int randomKey = random.nextInt(rows * cols);
+            int row = randomKey / cols;
+            int col = randomKey % cols;
+            if (CellState.isCovered(board.getCellState(row, col))) {
+                guesses++;
+                // call this function untill a covered cell is found and uncovered
+                return unCoverCell(row, col);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Uncover the covered cell least likely to be a mine. It is not a guess if the cell cannot be a mine, which the
+     * probabilities may find beyond the rules of the solver.
+     *
+     * @return true if a cell was uncovered
+     */
+    public boolean safest_try() {
+        probabilities.compute(engine.getMinesLeft());
+        int key = probabilities.safestCell();
+        if (key < 0)
+            return false;
+        if (probabilities.getProbability(key / cols, key % cols) > 0)
+            guesses++;
+        return unCoverCell(key / cols, key % cols);
+    }
+
+    public boolean flagCell(int row, int col) {
+        if (engine.toggleFlag(row, col) == 0)
+            return false;
+        listener.moved();
+        return true;
+    }
+
+    /**
+     * @return the number of guesses of the current game
+     */
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * @return the time spent in the strategy during the current game, in nanoseconds
+     */
+    public long getDeduceNanos() {
+        return deduceNanos;
+    }
+
+    /**
+     * @return the number of calls of the strategy during the current game
+     */
+    public int getDeduceCalls() {
+        return deduceCalls;
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+}
@@ -1,14 +1,31 @@
 package minesweeper.solver;
 
+import java.util.Arrays;
+
+/**
+ * Run the robot.
+ * <p>
+ * Usage: {@code Solver NMines TIMEOUT [strategy] [N]} to watch it play an NxN board, 20x20 by default, in a window,
+ * with one of {@link Strategy#NAMES}; or {@code Solver compare games N NMines [seed] [strategies...]} to play the same boards
+ * headless with each strategy, all of them by default, and compare their win rate and deduction latency.
+ */
 public class Solver {
-    private final int[] di = new int[]{-1, -1, -1, 0, 1, 1, 1, 0};
-    private final int[] dj = new int[]{-1, 0, 1, 1, 1, 0, -1, -1};
 
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("compare")) {
+            int games = Integer.parseInt(args[1]);
+            int N = Integer.parseInt(args[2]);
+            int NMines = Integer.parseInt(args[3]);
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 0L;
+            String[] strategies = args.length > 5 ? Arrays.copyOfRange(args, 5, args.length) : Strategy.NAMES;
+            BatchRunner.compare(games, N, NMines, seed, Runtime.getRuntime().availableProcessors(), strategies, true);
+            return;
+        }
 
-    public static void main(String[] args) {
-        int N = 20, NMines = Integer.parseInt(args[0]);
+        int N = args.length > 3 ? Integer.parseInt(args[3]) : 20, NMines = Integer.parseInt(args[0]);
+        Strategy strategy = Strategy.of(args.length > 2 ? args[2] : "pairs");
 
-        GameRobot robot = new GameRobot("Minesweeper", N, NMines, Integer.parseInt(args[1]));
+        GameRobot robot = new GameRobot("Minesweeper", N, NMines, Integer.parseInt(args[1]), strategy);
         robot.start();
         robot.autoPlay();
     }
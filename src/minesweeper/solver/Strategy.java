@@ -0,0 +1,69 @@
+package minesweeper.solver;
+
+import minesweeper.game.BoardView;
+
+import java.util.List;
+
+/**
+ * A deduction backend of the robot. A strategy reads the public state of the cells through a {@link BoardView} and
+ * returns the moves that are certain; the {@link RobotPlayer} applies them, and guesses when there are none.
+ * <p>
+ * A strategy may keep state between calls, e.g. listen to the board to only look at what changed: it is started
+ * before the first call of a game and stopped after the last one.
+ */
+public interface Strategy {
+
+    /**
+     * The names {@link #of} knows.
+     */
+    String[] NAMES = {"single", "pairs", "gauss", "tiles"};
+
+    /**
+     * The game on the view is about to be played.
+     *
+     * @param view the board
+     */
+    default void start(BoardView view) {
+    }
+
+    /**
+     * The game on the view is over, or the robot stopped playing it.
+     *
+     * @param view the board
+     */
+    default void stop(BoardView view) {
+    }
+
+    /**
+     * Deduce moves from the board as it is now. The moves are applied after the call, so they may repeat a cell.
+     *
+     * @param view      the board
+     * @param minesLeft the number of mines not flagged yet
+     * @return the certain moves, empty if nothing can be deduced
+     */
+    List<Move> deduce(BoardView view, int minesLeft);
+
+    /**
+     * Create a strategy by name.
+     *
+     * @param name {@code single} (single-cell rules), {@code pairs} (single-cell and pair rules), {@code gauss}
+     *             (Gaussian elimination over the frontier) or {@code tiles} (single-cell and pair rules on tiles of
+     *             the board in parallel)
+     * @return a new strategy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static Strategy of(String name) {
+        switch (name) {
+            case "single":
+                return new FrontierSolver(false);
+            case "pairs":
+                return new FrontierSolver(true);
+            case "gauss":
+                return new GaussianSolver();
+            case "tiles":
+                return new TiledSolver();
+            default:
+                throw new IllegalArgumentException("unknown strategy: " + name);
+        }
+    }
+}
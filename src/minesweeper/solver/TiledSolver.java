@@ -0,0 +1,217 @@
+package minesweeper.solver;
+
+import minesweeper.game.BoardListener;
+import minesweeper.game.BoardView;
+import minesweeper.game.states.GameState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The rules of the {@link FrontierSolver}, applied to tiles of the board in parallel, for very large boards.
+ * <p>
+ * A tile is a band of {@code TILE_ROWS} full rows: the frontier is found with word-wide scans of the rows, so a band
+ * is the unit it is cheapest to scan. The solver listens to the board and only deduces on the tiles a move changed,
+ * a change near the edge of a tile also making the neighbouring tile dirty. The tiles are solved
+ * concurrently in a {@link ForkJoinPool}, each into its own list of moves, reading the board which does not change
+ * during a deduction.
+ * <p>
+ * In the merge phase, the lists are joined in tile order, and the moves on the same cell found by two tiles (a
+ * covered cell on the edge of a tile is seen by the numbered cells of both) are kept once. The moves are thus in
+ * the same order whatever the number of threads, and the game plays the same.
+ */
+public class TiledSolver implements Strategy, BoardListener {
+
+    /**
+     * The number of rows of a tile.
+     */
+    static final int TILE_ROWS = 32;
+    /**
+     * Split the dirty tiles into tasks down to this many tiles.
+     */
+    private static final int TILES_PER_TASK = 2;
+
+    private final ForkJoinPool pool;
+    private final boolean pairRules;
+
+    private BoardView board;
+    private int rows, cols;
+    /**
+     * Bitsets of the tiles changed since the last single-cell pass, and since the last pair pass.
+     */
+    private long[] dirty, pairDirty;
+    /**
+     * Bitset of the cells a move of the deduction being merged is on, paged so that its memory follows the cells
+     * the moves are on and not the size of the board.
+     */
+    private PagedBitSet seen;
+
+    public TiledSolver() {
+        this(ForkJoinPool.commonPool(), true);
+    }
+
+    /**
+     * @param pool      the pool the tiles are solved in, its parallelism is the number of threads used
+     * @param pairRules also compare the constraints of neighbouring numbered cells
+     */
+    public TiledSolver(ForkJoinPool pool, boolean pairRules) {
+        this.pool = pool;
+        this.pairRules = pairRules;
+    }
+
+    @Override
+    public void start(BoardView view) {
+        if (view != board) {
+            board = view;
+            rows = view.getRows();
+            cols = view.getCols();
+            int tiles = (rows + TILE_ROWS - 1) / TILE_ROWS;
+            dirty = new long[(tiles + 63) >>> 6];
+            pairDirty = new long[(tiles + 63) >>> 6];
+            seen = new PagedBitSet((long) rows * cols);
+        }
+        board.addBoardListener(this);
+        boardChanged();
+    }
+
+    @Override
+    public void stop(BoardView view) {
+        view.removeBoardListener(this);
+    }
+
+    /**
+     * Apply the single-cell rules on the dirty tiles; if that tells nothing, the pair rules on the tiles changed
+     * since the last time they were applied.
+     *
+     * @return the moves deduced, in tile order
+     */
+    @Override
+    public List<Move> deduce(BoardView view, int minesLeft) {
+        List<Move> moves = solve(dirty, false);
+        if (moves.isEmpty() && pairRules && board.getGameState() == GameState.ONGOING)
+            moves = solve(pairDirty, true);
+        return moves;
+    }
+
+    /**
+     * Solve the tiles of a bitset in parallel, clear it, and merge the moves.
+     */
+    private List<Move> solve(long[] tileSet, boolean pairs) {
+        int n = 0;
+        for (long w : tileSet)
+            n += Long.bitCount(w);
+        int[] todo = new int[n];
+        n = 0;
+        for (int i = 0; i < tileSet.length; i++) {
+            for (long w = tileSet[i]; w != 0; w &= w - 1)
+                todo[n++] = (i << 6) + Long.numberOfTrailingZeros(w);
+            tileSet[i] = 0L;
+        }
+        if (n == 0)
+            return new ArrayList<>();
+
+        // one slot per tile, each set by the task that solves it
+        List<List<Move>> found = new ArrayList<>(Collections.nCopies(n, null));
+        if (n <= TILES_PER_TASK)
+            new Tiles(todo, 0, n, pairs, found).compute();
+        else
+            pool.invoke(new Tiles(todo, 0, n, pairs, found));
+        return merge(found);
+    }
+
+    /**
+     * Join the moves of the tiles in tile order, keeping the first move on each cell.
+     */
+    private List<Move> merge(List<List<Move>> found) {
+        int size = 0;
+        for (List<Move> f : found)
+            size += f.size();
+        List<Move> moves = new ArrayList<>(size);
+        for (List<Move> f : found) {
+            for (Move m : f) {
+                int key = m.getRow() * cols + m.getCol();
+                if (seen.add(key))
+                    moves.add(m);
+            }
+        }
+        for (Move m : moves)
+            seen.remove(m.getRow() * cols + m.getCol());
+        return moves;
+    }
+
+    /**
+     * Solve tiles {@code todo[from]} to {@code todo[to - 1]}, splitting the range in halves.
+     */
+    private final class Tiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] todo;
+        private final int from, to;
+        private final boolean pairs;
+        private final List<List<Move>> found;
+
+        Tiles(int[] todo, int from, int to, boolean pairs, List<List<Move>> found) {
+            this.todo = todo;
+            this.from = from;
+            this.to = to;
+            this.pairs = pairs;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                int[] covered = new int[8];
+                for (int i = from; i < to; i++)
+                    found.set(i, solveTile(todo[i], pairs, covered));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Tiles(todo, from, mid, pairs, found), new Tiles(todo, mid, to, pairs, found));
+        }
+    }
+
+    /**
+     * Apply the rules on the frontier cells of a tile.
+     */
+    private List<Move> solveTile(int tile, boolean pairs, int[] covered) {
+        List<Move> moves = new ArrayList<>();
+        int end = Math.min(rows, (tile + 1) * TILE_ROWS) * cols;
+        for (int key = board.nextFrontierCell(tile * TILE_ROWS * cols, end); key >= 0;
+             key = board.nextFrontierCell(key + 1, end)) {
+            if (pairs)
+                FrontierSolver.pairsOf(board, key / cols, key % cols, moves);
+            else
+                FrontierSolver.examine(board, key / cols, key % cols, covered, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * A cell changed, so did the constraints of the numbered cells around it, one row away, and the pairs of
+     * constraints three rows away. The tiles of those rows are dirty.
+     */
+    @Override
+    public void cellChanged(int row, int col) {
+        mark(dirty, row - 1, row + 1);
+        mark(pairDirty, row - 3, row + 3);
+    }
+
+    private void mark(long[] tileSet, int fromRow, int toRow) {
+        int last = Math.min(rows - 1, toRow) / TILE_ROWS;
+        for (int tile = Math.max(0, fromRow) / TILE_ROWS; tile <= last; tile++)
+            tileSet[tile >>> 6] |= 1L << tile;
+    }
+
+    /**
+     * Start over: every tile is dirty.
+     */
+    @Override
+    public void boardChanged() {
+        mark(dirty, 0, rows - 1);
+        mark(pairDirty, 0, rows - 1);
+    }
+}
@@ -0,0 +1,118 @@
+package minesweeper;
+
+import minesweeper.game.Board;
+import minesweeper.game.BoardSnapshot;
+import minesweeper.game.MoveResult;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BoardTest {
+
+    /**
+     * Uncover the board until the game ends, so that every mine shows up.
+     */
+    private static int countMines(Board board) {
+        int N = board.getN();
+        int mines = 0;
+        for (int r = 0; r < N; r++)
+            for (int c = 0; c < N; c++)
+                board.uncoverCell(r, c);
+        for (int r = 0; r < N; r++)
+            for (int c = 0; c < N; c++) {
+                CellState s = board.getCellState(r, c);
+                if (s == CellState.MINE || s == CellState.FIRED_MINE || s == CellState.FLAGGED)
+                    mines++;
+            }
+        return mines;
+    }
+
+    @Test
+    public void testExactMineCountAtAnyDensity() {
+        assertEquals(1, countMines(new Board(10, 1)));
+        assertEquals(50, countMines(new Board(20, 50)));
+        assertEquals(99, countMines(new Board(10, 99)));
+        assertEquals(100, countMines(new Board(10, 100)));
+    }
+
+    @Test
+    public void testSameSeedSameBoard() {
+        Board a = new Board(30, 100, 42L, false);
+        Board b = new Board(30, 100, 42L, false);
+        countMines(a);
+        countMines(b);
+        for (int r = 0; r < 30; r++)
+            for (int c = 0; c < 30; c++)
+                assertEquals(a.getCellState(r, c), b.getCellState(r, c));
+    }
+
+    @Test
+    public void testFirstClickIsSafe() {
+        for (long seed = 0; seed < 200; seed++) {
+            Board board = new Board(10, 40, seed, true);
+            MoveResult result = board.uncoverCell(4, 7);
+            assertEquals(GameState.ONGOING, result.getGameState());
+            // no mine around either, so the first click always opens a region
+            assertEquals(CellState.UNC0, board.getCellState(4, 7));
+            assertEquals(40, countMines(board));
+        }
+        // too dense for a safe zone, the clicked cell is still safe
+        Board dense = new Board(10, 95, 7L, true);
+        assertEquals(1, dense.uncoverCell(5, 5).getRevealed());
+        assertEquals(95, countMines(dense));
+    }
+
+    @Test
+    public void testNoMoveOnceTheGameIsOver() {
+        Board board = new Board(10, 30, 3L, false);
+        countMines(board);
+        assertEquals(GameState.LOST, board.getGameState());
+        int covered = board.getNCovered();
+        for (int r = 0; r < 10; r++)
+            for (int c = 0; c < 10; c++) {
+                assertFalse(board.uncoverCell(r, c).isApplied());
+                assertFalse(board.inferOnCell(r, c).isApplied());
+                assertEquals(0, board.toggleFlag(r, c));
+            }
+        assertEquals(covered, board.getNCovered());
+        assertEquals(GameState.LOST, board.getGameState());
+    }
+
+    /**
+     * Save a game in progress and restore it: the restored board shows the same cells and plays on the same.
+     */
+    @Test
+    public void testSnapshotRestoresTheGame() throws IOException {
+        Path file = Files.createTempFile("board", ".snap");
+        try {
+            Board board = new Board(100, 1500, 11L, true);
+            board.uncoverCell(50, 50);
+            for (int k = 0; k < 100; k += 3)
+                board.toggleFlag(k, 99 - k);
+            BoardSnapshot.save(board, file);
+            Board restored = BoardSnapshot.load(file);
+
+            assertEquals(board.getNCovered(), restored.getNCovered());
+            assertEquals(board.getNFlagged(), restored.getNFlagged());
+            assertEquals(board.getSeed(), restored.getSeed());
+            for (int key = 0; key < 100 * 100; key++) {
+                board.uncoverCell(key / 100, key % 100);
+                restored.uncoverCell(key / 100, key % 100);
+                assertEquals(board.getGameState(), restored.getGameState());
+                if (board.getGameState() != GameState.ONGOING)
+                    break;
+            }
+            for (int key = 0; key < 100 * 100; key++)
+                assertEquals(board.getCellState(key / 100, key % 100), restored.getCellState(key / 100, key % 100));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package minesweeper;
+
+import minesweeper.game.Board;
+import minesweeper.game.ChunkedBoard;
+import minesweeper.game.GameEngine;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedBoardTest {
+
+    /**
+     * Lose the game, then count the mines shown.
+     */
+    private static int mines(ChunkedBoard board) {
+        for (int key = 0; board.getGameState() == GameState.ONGOING; key++)
+            board.uncoverCell(key / board.getCols(), key % board.getCols());
+        int mines = 0;
+        for (int r = 0; r < board.getRows(); r++)
+            for (int c = 0; c < board.getCols(); c++) {
+                CellState s = board.getCellState(r, c);
+                if (s == CellState.MINE || s == CellState.FIRED_MINE)
+                    mines++;
+            }
+        return mines;
+    }
+
+    @Test
+    public void testExactMineCount() {
+        for (long seed = 0; seed < 20; seed++) {
+            ChunkedBoard board = new ChunkedBoard(150, 230, 5000, seed, true);
+            board.uncoverCell(75, 100);
+            assertEquals(5000, mines(board), "seed " + seed);
+        }
+    }
+
+    @Test
+    public void testSameSeedSameBoard() {
+        ChunkedBoard a = new ChunkedBoard(100, 300, 4000, 7L, true);
+        ChunkedBoard b = new ChunkedBoard(100, 300, 4000, 7L, true);
+        // the chunks are allocated in a different order
+        a.uncoverCell(50, 150);
+        b.toggleFlag(99, 299);
+        b.toggleFlag(99, 299);
+        b.uncoverCell(50, 150);
+        for (int r = 0; r < 100; r += 3)
+            for (int c = 0; c < 300; c += 7) {
+                a.uncoverCell(r, c);
+                b.uncoverCell(r, c);
+            }
+        assertEquals(a.getNCovered(), b.getNCovered());
+        for (int r = 0; r < 100; r++)
+            for (int c = 0; c < 300; c++)
+                assertEquals(a.getCellState(r, c), b.getCellState(r, c), "(" + r + ", " + c + ")");
+    }
+
+    @Test
+    public void testOnlyTouchedChunksAreAllocated() {
+        ChunkedBoard board = new ChunkedBoard(20000, 20000, 40_000_000, 1L, true);
+        board.uncoverCell(10000, 10000);
+        assertEquals(GameState.ONGOING, board.getGameState());
+        assertEquals(CellState.UNC0, board.getCellState(10000, 10000));
+        // the cascade of the first click and its border, out of 98 000 chunks
+        int allocated = board.getAllocatedChunks();
+        assertTrue(allocated < board.getChunkCount() / 100, allocated + " chunks allocated");
+        assertEquals(CellState.COVERED, board.getCellState(0, 0));
+        assertEquals(allocated, board.getAllocatedChunks());
+    }
+
+    @Test
+    public void testCascadeCrossesChunks() {
+        ChunkedBoard board = new ChunkedBoard(200, 300, 1, 3L, true);
+        board.uncoverCell(0, 0);
+        // a single mine: everything opens but the mine and at most its 8 neighbours
+        assertTrue(board.getNCovered() <= 9, board.getNCovered() + " cells still covered");
+        assertNotEquals(CellState.COVERED, board.getCellState(199, 299));
+        assertEquals(board.getChunkCount(), board.getAllocatedChunks());
+    }
+
+    @Test
+    public void testScanAfterTheGameAllocatesNothing() {
+        ChunkedBoard board = new ChunkedBoard(2000, 3000, 900_000, 5L, true);
+        board.uncoverCell(1000, 1500);
+        SplittableRandom random = new SplittableRandom(5L);
+        while (board.getGameState() == GameState.ONGOING)
+            board.uncoverCell(random.nextInt(2000), random.nextInt(3000));
+        int allocated = board.getAllocatedChunks();
+        int mines = 0;
+        for (int r = 0; r < 2000; r++)
+            for (int c = 0; c < 3000; c++) {
+                CellState s = board.getCellState(r, c);
+                if (s == CellState.MINE || s == CellState.FIRED_MINE)
+                    mines++;
+            }
+        assertEquals(900_000, mines);
+        assertEquals(allocated, board.getAllocatedChunks());
+    }
+
+    /**
+     * The mines of a board after its first click, shown by a twin board played until it is lost.
+     */
+    private static boolean[][] minesAfter(int rows, int cols, int NMines, long seed, int row, int col) {
+        ChunkedBoard twin = new ChunkedBoard(rows, cols, NMines, seed, true);
+        twin.uncoverCell(row, col);
+        for (int key = 0; twin.getGameState() == GameState.ONGOING; key++)
+            twin.uncoverCell(key / cols, key % cols);
+        boolean[][] mines = new boolean[rows][cols];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+                mines[r][c] = twin.getCellState(r, c) == CellState.MINE
+                        || twin.getCellState(r, c) == CellState.FIRED_MINE;
+        return mines;
+    }
+
+    @Test
+    public void testFrontierMatchesTheCells() {
+        ChunkedBoard board = new ChunkedBoard(150, 230, 6000, 11L, true);
+        boolean[][] mines = minesAfter(150, 230, 6000, 11L, 75, 100);
+        board.uncoverCell(75, 100);
+        SplittableRandom random = new SplittableRandom(11L);
+        for (int i = 0; i < 60; i++) {
+            int r = random.nextInt(150), c = random.nextInt(230);
+            if (i % 3 == 0)
+                board.toggleFlag(r, c);
+            else if (!mines[r][c])
+                board.uncoverCell(r, c);
+        }
+        assertEquals(GameState.ONGOING, board.getGameState());
+        int next = board.nextFrontierCell(0), previous = -1;
+        for (int key = 0; key < 150 * 230; key++) {
+            int r = key / 230, c = key % 230;
+            if (!isFrontier(board, r, c))
+                continue;
+            assertEquals(key, next, "(" + r + ", " + c + ")");
+            assertEquals(key, board.nextFrontierCell(previous + 1, key + 1));
+            assertEquals(-1, board.nextFrontierCell(previous + 1, key));
+            previous = key;
+            next = board.nextFrontierCell(key + 1);
+        }
+        assertEquals(-1, next);
+    }
+
+    private static boolean isFrontier(ChunkedBoard board, int row, int col) {
+        CellState s = board.getCellState(row, col);
+        if (s == CellState.COVERED || s == CellState.FLAGGED)
+            return false;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < board.getRows() && c >= 0 && c < board.getCols()
+                        && board.getCellState(r, c) == CellState.COVERED)
+                    return true;
+        return false;
+    }
+
+    @Test
+    public void testChord() {
+        ChunkedBoard board = new ChunkedBoard(100, 130, 1500, 2L, true);
+        boolean[][] mines = minesAfter(100, 130, 1500, 2L, 50, 60);
+        board.uncoverCell(50, 60);
+        int key = board.nextFrontierCell(0);
+        int row = key / 130, col = key % 130;
+        assertFalse(board.inferOnCell(row, col).isApplied(), "no mine flagged yet");
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < 100 && c >= 0 && c < 130 && mines[r][c])
+                    assertEquals(-1, board.toggleFlag(r, c));
+        assertTrue(board.inferOnCell(row, col).isApplied());
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < 100 && c >= 0 && c < 130)
+                    assertNotEquals(CellState.COVERED, board.getCellState(r, c), "(" + r + ", " + c + ")");
+        assertEquals(GameState.ONGOING, board.getGameState());
+    }
+
+    @Test
+    public void testEnginePlaysLargeBoardsChunked() {
+        assertTrue(new GameEngine(30, 100, 1L, true).getBoard() instanceof Board);
+        GameEngine engine = new GameEngine(5000, 3_000_000, 1L, true);
+        assertTrue(engine.getBoard() instanceof ChunkedBoard);
+        assertTrue(engine.uncover(2500, 2500).isApplied());
+        assertEquals(GameState.ONGOING, engine.getGameState());
+        assertEquals(3_000_000, engine.getMinesLeft());
+    }
+}
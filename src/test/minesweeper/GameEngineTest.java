@@ -0,0 +1,256 @@
+package minesweeper;
+
+import minesweeper.game.Board;
+import minesweeper.game.ChunkedBoard;
+import minesweeper.game.GameEngine;
+import minesweeper.game.MoveLog;
+import minesweeper.game.MoveReplayer;
+import minesweeper.game.MoveResult;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import minesweeper.solver.RobotPlayer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.random.RandomGeneratorFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameEngineTest {
+    @BeforeAll
+    public static void init() {
+        // the engine must not need a display
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    public void testNewGameIsOngoing() {
+        GameEngine engine = new GameEngine(20, 50);
+        assertEquals(GameState.ONGOING, engine.getGameState());
+        assertFalse(engine.isFinished());
+        assertEquals(50, engine.getMinesLeft());
+        assertEquals(CellState.COVERED, engine.getCellState(0, 0));
+    }
+
+    @Test
+    public void testToggleFlagUpdatesCounter() {
+        GameEngine engine = new GameEngine(10, 10);
+        assertEquals(-1, engine.toggleFlag(3, 4));
+        assertEquals(9, engine.getMinesLeft());
+        assertEquals(CellState.FLAGGED, engine.getCellState(3, 4));
+        assertEquals(1, engine.toggleFlag(3, 4));
+        assertEquals(10, engine.getMinesLeft());
+        assertEquals(2, engine.getMoves());
+    }
+
+    @Test
+    public void testUncoveringEveryCellEndsTheGame() {
+        GameEngine engine = new GameEngine(10, 10);
+        MoveResult last = null;
+        int revealed = 0;
+        for (int r = 0; r < 10 && !engine.isFinished(); r++)
+            for (int c = 0; c < 10 && !engine.isFinished(); c++) {
+                MoveResult result = engine.uncover(r, c);
+                if (result.isApplied()) {
+                    assertTrue(result.getRevealed() > 0, "an applied uncover reveals at least one cell");
+                    revealed += result.getRevealed();
+                    last = result;
+                }
+            }
+        assertTrue(engine.isFinished());
+        assertTrue(last.isFinished(), "the last move reports the end of the game");
+        assertEquals(engine.getGameState(), last.getGameState());
+        assertEquals(100 - engine.getBoard().getNCovered(), revealed);
+        // no more moves once the game is over
+        assertFalse(engine.uncover(0, 0).isApplied());
+        assertEquals(0, engine.toggleFlag(0, 0));
+    }
+
+    /**
+     * A chord around which every cell is uncovered or flagged already changes nothing: it is neither counted nor
+     * undone.
+     */
+    @Test
+    public void testChordWithNothingToUncoverIsIgnored() {
+        GameEngine engine = new GameEngine(30, 100, 5L, true);
+        GameEngine twin = new GameEngine(30, 100, 5L, true);
+        engine.getBoard().setHistoryEnabled(true);
+        engine.uncover(15, 15);
+        twin.uncover(15, 15); // the same mines, shown once the twin fires one
+        for (int k = 0; k < 30 * 30 && !twin.isFinished(); k++)
+            twin.uncover(k / 30, k % 30);
+        int key = engine.getBoard().nextFrontierCell(0);
+        int row = key / 30, col = key % 30;
+        for (int r = row - 1; r <= row + 1; r++)
+            for (int c = col - 1; c <= col + 1; c++)
+                if (r >= 0 && r < 30 && c >= 0 && c < 30 && (twin.getCellState(r, c) == CellState.MINE
+                        || twin.getCellState(r, c) == CellState.FIRED_MINE))
+                    engine.toggleFlag(r, c);
+        assertTrue(engine.chord(row, col).isApplied(), "the covered cells left around are safe");
+        int moves = engine.getMoves();
+        assertFalse(engine.chord(row, col).isApplied());
+        assertEquals(moves, engine.getMoves());
+        assertTrue(engine.undo());
+        assertEquals(moves - 1, engine.getMoves());
+        assertTrue(engine.chord(row, col).isApplied(), "the undo took back the chord before the ignored one");
+    }
+
+    /**
+     * Let a robot play a few games with their moves logged, then rebuild the end of each game and a position in the
+     * middle of one from the log.
+     */
+    @Test
+    public void testMoveLogReplaysTheGames() throws IOException {
+        Path file = Files.createTempFile("moves", ".log");
+        try {
+            GameEngine engine = new GameEngine(16, 40, 7L, true);
+            CellState[][][] ends = new CellState[3][][];
+            int[] moves = new int[3];
+            try (MoveLog log = new MoveLog(file, engine.getBoard())) {
+                engine.setMoveLog(log);
+                RobotPlayer player = new RobotPlayer(engine, new SplittableRandom(7L));
+                for (int g = 0; g < 3; g++) {
+                    if (g > 0)
+                        engine.reset();
+                    player.play();
+                    ends[g] = states(engine);
+                    moves[g] = engine.getMoves();
+                }
+            }
+
+            MoveReplayer replayer = new MoveReplayer(file);
+            assertEquals(3, replayer.getGames());
+            for (int g = 2; g >= 0; g--) {
+                replayer.seek(g, Integer.MAX_VALUE);
+                assertEquals(moves[g], replayer.getMove());
+                assertTrue(replayer.getEngine().isFinished());
+                assertArrayEquals(ends[g], states(replayer.getEngine()));
+            }
+            replayer.seek(1, moves[1] / 2);
+            assertEquals(moves[1] / 2, replayer.getEngine().getMoves());
+            assertFalse(replayer.getEngine().isFinished());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A game on a generator that is not the default one replays with the same mines.
+     */
+    @Test
+    public void testMoveLogKeepsTheGenerator() throws IOException {
+        Path file = Files.createTempFile("moves", ".log");
+        try {
+            GameEngine engine = new GameEngine(new Board(16, 40, 5L, true,
+                    RandomGeneratorFactory.of("L64X128MixRandom")));
+            MoveLog log = new MoveLog(file, engine.getBoard());
+            engine.setMoveLog(log);
+            new RobotPlayer(engine, new SplittableRandom(5L)).play();
+            log.close();
+            log.close();
+
+            MoveReplayer replayer = new MoveReplayer(file);
+            replayer.seek(0, Integer.MAX_VALUE);
+            assertEquals("L64X128MixRandom", replayer.getEngine().getBoard().getGeneratorName());
+            assertEquals(engine.getGameState(), replayer.getEngine().getGameState());
+            assertArrayEquals(states(engine), states(replayer.getEngine()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A chunked board, larger than a board or not square, replays as a chunked board.
+     */
+    @Test
+    public void testMoveLogReplaysAChunkedBoard() throws IOException {
+        Path file = Files.createTempFile("moves", ".log");
+        try {
+            GameEngine engine = new GameEngine(40, 90, 500, 3L, true);
+            try (MoveLog log = new MoveLog(file, engine.getBoard())) {
+                engine.setMoveLog(log);
+                new RobotPlayer(engine, new SplittableRandom(3L)).play();
+            }
+
+            MoveReplayer replayer = new MoveReplayer(file);
+            replayer.seek(0, Integer.MAX_VALUE);
+            assertEquals(ChunkedBoard.GENERATOR, replayer.getEngine().getBoard().getGeneratorName());
+            assertEquals(engine.getGameState(), replayer.getEngine().getGameState());
+            assertArrayEquals(states(engine), states(replayer.getEngine()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Take back every move of a robot game down to the untouched board, apply them again, and replay the whole from
+     * the log.
+     */
+    @Test
+    public void testUndoAndRedoEveryMove() throws IOException {
+        Path file = Files.createTempFile("moves", ".log");
+        try {
+            GameEngine engine = new GameEngine(16, 40, 11L, true);
+            assertFalse(engine.undo(), "no history by default");
+            engine.getBoard().setHistoryEnabled(true);
+            CellState[][] end;
+            try (MoveLog log = new MoveLog(file, engine.getBoard())) {
+                engine.setMoveLog(log);
+                new RobotPlayer(engine, new SplittableRandom(11L)).play();
+                assertTrue(engine.isFinished());
+                end = states(engine);
+                GameState result = engine.getGameState();
+                int moves = engine.getMoves();
+                assertEquals(moves, engine.getBoard().getUndoable());
+
+                while (engine.undo())
+                    ;
+                assertEquals(0, engine.getMoves());
+                assertEquals(moves, engine.getBoard().getRedoable());
+                assertEquals(GameState.ONGOING, engine.getGameState());
+                assertEquals(40, engine.getMinesLeft());
+                assertEquals(16 * 16, engine.getBoard().getNCovered());
+                CellState[][] covered = states(engine);
+                for (CellState[] row : covered)
+                    for (CellState state : row)
+                        assertEquals(CellState.COVERED, state);
+
+                while (engine.redo() != null)
+                    ;
+                assertEquals(moves, engine.getMoves());
+                assertEquals(result, engine.getGameState());
+                assertArrayEquals(end, states(engine));
+
+                // take back the last two moves and apply them again, one at a time
+                engine.undo();
+                engine.undo();
+                assertEquals(2, engine.getBoard().getRedoable());
+                engine.redo();
+                assertEquals(1, engine.getBoard().getRedoable());
+                engine.redo();
+            }
+
+            MoveReplayer replayer = new MoveReplayer(file);
+            replayer.seek(0, Integer.MAX_VALUE);
+            assertArrayEquals(end, states(replayer.getEngine()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static CellState[][] states(GameEngine engine) {
+        int rows = engine.getBoard().getRows(), cols = engine.getBoard().getCols();
+        CellState[][] states = new CellState[rows][cols];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+                states[r][c] = engine.getCellState(r, c);
+        return states;
+    }
+}
@@ -0,0 +1,98 @@
+package minesweeper;
+
+import minesweeper.game.ChunkCache;
+import minesweeper.game.ChunkGenerator;
+import minesweeper.game.GameEngine;
+import minesweeper.game.InfiniteBoard;
+import minesweeper.game.InfiniteWindow;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import minesweeper.solver.RobotPlayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InfiniteBoardTest {
+
+    @Test
+    public void testChunksArePure() {
+        ChunkGenerator a = new ChunkGenerator(5L, 0.2), b = new ChunkGenerator(5L, 0.2);
+        long[] first = a.mines(-3, 7);
+        b.mines(0, 0);
+        b.mines(12, -40);
+        assertArrayEquals(first, b.mines(-3, 7));
+        assertArrayEquals(first, a.mines(-3, 7));
+    }
+
+    /**
+     * Clear a band of rows along a walk, flagging the mines, on a board whose cache keeps a few chunks only and on
+     * one that keeps them all: the evicted chunks must come back as they were left, and the deltas on file are
+     * counted in the budget.
+     */
+    @Test
+    public void testEvictedChunksComeBack() {
+        InfiniteBoard small = new InfiniteBoard(9L, 0.2, 64 << 10, true);
+        InfiniteBoard large = new InfiniteBoard(9L, 0.2, Long.MAX_VALUE, true);
+        ChunkGenerator oracle = small.getGenerator();
+        for (InfiniteBoard board : new InfiniteBoard[]{small, large}) {
+            board.uncoverCell(0, 0);
+            for (int col = -3000; col < 3000; col++)
+                for (int row = -2; row <= 2; row++) {
+                    if (board.getCellState(row, col) != CellState.COVERED)
+                        continue;
+                    if (oracle.isMine(row, col))
+                        board.toggleFlag(row, col);
+                    else
+                        board.uncoverCell(row, col);
+                }
+        }
+        ChunkCache cache = small.getCache();
+        assertTrue(cache.getDeltas() > 0 && cache.getFileBytes() > 0);
+        assertTrue(cache.getMemoryBytes() <= 64 << 10, cache.toString());
+        assertEquals(0, large.getCache().getDeltas());
+        assertEquals(large.getUncovered(), small.getUncovered());
+        for (int col = -3000; col < 3000; col += 7)
+            for (int row = -70; row <= 70; row++)
+                assertEquals(large.getCellState(row, col), small.getCellState(row, col), "(" + row + ", " + col + ")");
+        assertTrue(cache.getRestored() > 0);
+        small.close();
+    }
+
+    /**
+     * Let a robot clear windows sliding east through an engine, a lost game starting a new one. A won window has every cell that is not a mine uncovered on the infinite board, and its numbers never count more mines than
+     * the infinite board.
+     */
+    @Test
+    public void testRobotPlaysWindows() {
+        try (InfiniteBoard board = new InfiniteBoard(4L, 0.15, 0, true)) {
+            SplittableRandom random = new SplittableRandom(4L);
+            int won = 0;
+            for (int w = 0; w < 40; w++) {
+                InfiniteWindow window = board.window(-20, w * 32, 40, 64);
+                GameEngine engine = new GameEngine(window);
+                GameState result = new RobotPlayer(engine, random).play();
+                assertEquals(result, window.getGameState());
+                for (int r = 0; r < 40; r++)
+                    for (int c = 0; c < 64; c++) {
+                        CellState cell = window.getCellState(r, c), whole = board.getCellState(r - 20, c + w * 32);
+                        if (result == GameState.WON)
+                            assertTrue(cell == CellState.FLAGGED || whole.getValue() >= 0,
+                                    "(" + r + ", " + c + ") of window " + w);
+                        if (cell.getValue() >= 0)
+                            assertTrue(cell.getValue() <= whole.getValue(), "(" + r + ", " + c + ") of window " + w);
+                    }
+                if (result == GameState.WON) {
+                    won++;
+                } else {
+                    assertEquals(GameState.LOST, board.getGameState());
+                    board.reset();
+                }
+            }
+            assertTrue(won > 0);
+        }
+    }
+}
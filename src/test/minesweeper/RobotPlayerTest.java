@@ -0,0 +1,100 @@
+package minesweeper;
+
+import minesweeper.game.BoardView;
+import minesweeper.game.ChunkedBoard;
+import minesweeper.game.GameEngine;
+import minesweeper.game.states.CellState;
+import minesweeper.game.states.GameState;
+import minesweeper.solver.RobotPlayer;
+import minesweeper.solver.Strategy;
+import minesweeper.solver.TiledSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RobotPlayerTest {
+
+    private static int wrongFlags(BoardView board) {
+        int wrong = 0;
+        for (int r = 0; r < board.getRows(); r++)
+            for (int c = 0; c < board.getCols(); c++)
+                if (board.getCellState(r, c) == CellState.WRONG_FLAG)
+                    wrong++;
+        return wrong;
+    }
+
+    @Test
+    public void testDeductionsNeverFlagASafeCell() {
+        for (long seed = 0; seed < 300; seed++) {
+            for (String strategy : Strategy.NAMES) {
+                GameEngine engine = new GameEngine(16, 40, seed, true);
+                new RobotPlayer(engine, new SplittableRandom(seed), Strategy.of(strategy), seed % 2 == 0).play();
+                assertTrue(engine.isFinished());
+                assertEquals(0, wrongFlags(engine.getBoard()), strategy + ", seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    public void testRobotPlaysAChunkedBoard() {
+        for (long seed = 0; seed < 10; seed++) {
+            // not square, so the engine plays a chunked board
+            GameEngine engine = new GameEngine(150, 230, 4000, seed, true);
+            assertTrue(engine.getBoard() instanceof ChunkedBoard);
+            new RobotPlayer(engine, new SplittableRandom(seed), true, true).play();
+            assertTrue(engine.isFinished());
+            assertEquals(0, wrongFlags(engine.getBoard()), "seed " + seed);
+        }
+    }
+
+    @Test
+    public void testPairRulesGuessLess() {
+        int single = 0, pairs = 0;
+        for (long seed = 0; seed < 300; seed++) {
+            RobotPlayer a = new RobotPlayer(new GameEngine(16, 40, seed, true), new SplittableRandom(seed), false, false);
+            a.play();
+            single += a.getGuesses();
+            RobotPlayer b = new RobotPlayer(new GameEngine(16, 40, seed, true), new SplittableRandom(seed), true, false);
+            b.play();
+            pairs += b.getGuesses();
+        }
+        assertTrue(pairs < single, pairs + " guesses with pair rules, " + single + " without");
+    }
+
+    @Test
+    public void testSafestGuessesWinMore() {
+        int random = 0, safest = 0;
+        for (long seed = 0; seed < 300; seed++) {
+            GameEngine a = new GameEngine(16, 40, seed, true);
+            if (new RobotPlayer(a, new SplittableRandom(seed), true, false).play() == GameState.WON)
+                random++;
+            GameEngine b = new GameEngine(16, 40, seed, true);
+            if (new RobotPlayer(b, new SplittableRandom(seed), true, true).play() == GameState.WON)
+                safest++;
+        }
+        assertTrue(safest > random, safest + " games won with the safest guesses, " + random + " with random ones");
+    }
+
+    @Test
+    public void testTiledSolverPlaysTheSameOnAnyThreads() {
+        ForkJoinPool one = new ForkJoinPool(1), four = new ForkJoinPool(4);
+        try {
+            for (long seed = 0; seed < 20; seed++) {
+                GameEngine a = new GameEngine(100, 1500, seed, true);
+                GameState ra = new RobotPlayer(a, new SplittableRandom(seed), new TiledSolver(one, true), false).play();
+                GameEngine b = new GameEngine(100, 1500, seed, true);
+                GameState rb = new RobotPlayer(b, new SplittableRandom(seed), new TiledSolver(four, true), false).play();
+                assertEquals(ra, rb, "seed " + seed);
+                assertEquals(a.getMoves(), b.getMoves(), "seed " + seed);
+                assertEquals(a.getBoard().getNCovered(), b.getBoard().getNCovered(), "seed " + seed);
+            }
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+}